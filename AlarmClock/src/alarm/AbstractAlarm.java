@@ -56,6 +56,10 @@ public abstract class AbstractAlarm implements IAlarm, Cloneable {
 	 * A list of alarm listeners
 	 */
 	protected List<IAlarmListener> listeners;
+	/**
+	 * The version of this alarm (see {@link #getVersion()})
+	 */
+	private transient volatile int version;
 
 
 	/**
@@ -102,10 +106,25 @@ public abstract class AbstractAlarm implements IAlarm, Cloneable {
 		return alarmDate;
 	}
 
+	/**
+	 * Does nothing by default
+	 */
+	@Override
+	public void prepare(long deadline) {
+	}
+
+	/**
+	 * Does nothing by default
+	 */
+	@Override
+	public void cancelPreparation() {
+	}
+
 	@Override
 	public void invoke() {
 		invocations++;
 		tempAlarmDate = null;
+		version++;
 
 		// run the alarm code in a new thread so that it can't delay other
 		// alarms
@@ -188,6 +207,7 @@ public abstract class AbstractAlarm implements IAlarm, Cloneable {
 		}
 
 		alarmDate = new Date(inst.toEpochMilli());
+		version++;
 	}
 
 	@Override
@@ -212,11 +232,13 @@ public abstract class AbstractAlarm implements IAlarm, Cloneable {
 	@Override
 	public void group(AlarmGroup group) {
 		this.group = group;
+		version++;
 	}
 
 	@Override
 	public void ungroup() {
 		group = null;
+		version++;
 	}
 
 	@Override
@@ -237,12 +259,14 @@ public abstract class AbstractAlarm implements IAlarm, Cloneable {
 		assert (temporaryDate != null);
 
 		tempAlarmDate = temporaryDate;
+		version++;
 	}
 
 	@Override
 	public void setActive(boolean active) {
 		if (isActive != active) {
 			isActive = active;
+			version++;
 
 			notifyListeners(ACTIVITY_CHANGED);
 		}
@@ -253,6 +277,11 @@ public abstract class AbstractAlarm implements IAlarm, Cloneable {
 		return isActive;
 	}
 
+	@Override
+	public int getVersion() {
+		return version;
+	}
+
 	@Override
 	public void addAlarmListener(IAlarmListener listener) {
 		synchronized (listeners) {
@@ -294,6 +323,7 @@ public abstract class AbstractAlarm implements IAlarm, Cloneable {
 		assert (date != null);
 
 		tempAlarmDate = date;
+		version++;
 
 		notifyListeners(ACTIVITY_CHANGED);
 	}
@@ -11,11 +11,11 @@ import java.nio.file.Files;
 import java.nio.file.StandardCopyOption;
 import java.util.ArrayList;
 import java.util.Comparator;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.locks.ReentrantLock;
 
-import org.eclipse.swt.widgets.Display;
-
 import util.NTPException;
 import util.Util;
 
@@ -35,10 +35,15 @@ public class AlarmManager implements Serializable, IAlarmListener {
 
 	public static final String SAVE_PATH = PROGRAM_DIR + File.separator + "AlarmManager.ser";
 
+	/**
+	 * How many milliseconds before its deadline an alarm gets prepared
+	 */
+	public static long PREPARATION_LEAD_TIME = 10000;
+
 	/**
 	 * The manager instance
 	 */
-	protected static transient AlarmManager MANAGER;
+	protected static transient volatile AlarmManager MANAGER;
 	/**
 	 * The comparator used for sorting the alarms. It will sort them based on the
 	 * set date
@@ -87,6 +92,30 @@ public class AlarmManager implements Serializable, IAlarmListener {
 	 */
 	protected transient int failedSaves;
 
+	/**
+	 * The groups of all alarms in the order they have been added. Alarms that
+	 * aren't part of a group are put into their own unnamed group. It is
+	 * created lazily (see {@link #initializeGroupIndex()}).
+	 */
+	protected transient List<AlarmGroup> groupIndex;
+	/**
+	 * Maps every alarm to the group it has been indexed with
+	 */
+	protected transient Map<IAlarm, AlarmGroup> indexedGroups;
+	/**
+	 * The amount of alarms of this manager in each indexed group
+	 */
+	protected transient Map<AlarmGroup, Integer> groupMembers;
+	/**
+	 * The alarm at the head of the sorted alarm list (see
+	 * {@link #getNextAlarm()})
+	 */
+	protected transient volatile IAlarm nextAlarm;
+	/**
+	 * Indicates whether {@link #nextAlarm} has been determined yet
+	 */
+	protected transient volatile boolean nextAlarmKnown;
+
 
 	protected AlarmManager() {
 		alarms = new ArrayList<IAlarm>();
@@ -100,7 +129,9 @@ public class AlarmManager implements Serializable, IAlarmListener {
 	 * Gets the current instance of the alarm manager
 	 */
 	public static final AlarmManager getManager() {
-		initialize();
+		if (MANAGER == null) {
+			initialize();
+		}
 
 		return MANAGER;
 	}
@@ -109,16 +140,17 @@ public class AlarmManager implements Serializable, IAlarmListener {
 	 * Shuts down the manager if one has been instantiated already.
 	 * If not this method will simply exit
 	 */
-	public static final void shutdown() {
+	public static final synchronized void shutdown() {
 		if (MANAGER != null) {
 			MANAGER.doShutdown();
 		}
 	}
 
 	/**
-	 * Initializes the manager
+	 * Initializes the manager. This may be called from any thread; concurrent
+	 * callers wait until the saved manager has been loaded.
 	 */
-	public static final void initialize() {
+	public static final synchronized void initialize() {
 		File saveDir = new File(PROGRAM_DIR);
 
 		if (!saveDir.exists()) {
@@ -161,15 +193,18 @@ public class AlarmManager implements Serializable, IAlarmListener {
 		synchronized (alarmLock) {
 			alarms.add(alarm);
 			alarm.addAlarmListener(this);
-		}
 
-		if (notifyListener) {
-			notifyAlarmsChanged();
+			indexAlarm(alarm);
 		}
 
+		// reconfigure first so that the listeners see the new next alarm
 		if (reconfigure) {
 			reconfigureAlarms();
 		}
+
+		if (notifyListener) {
+			notifyAlarmsChanged();
+		}
 	}
 
 	/**
@@ -197,6 +232,13 @@ public class AlarmManager implements Serializable, IAlarmListener {
 		synchronized (alarmLock) {
 			alarms.remove(alarm);
 			alarm.removeAlarmListener(this);
+
+			unindexAlarm(alarm);
+
+			if (alarm == nextAlarm) {
+				// the remaining list is still sorted
+				updateNextAlarm();
+			}
 		}
 
 		if (notifyListener) {
@@ -263,6 +305,43 @@ public class AlarmManager implements Serializable, IAlarmListener {
 		}
 	}
 
+	/**
+	 * Gets a copy of the alarms this manager currently holds in their current
+	 * order. Unlike {@link #getAlarms()} it can be indexed safely while the
+	 * alarms are modified.
+	 */
+	public IAlarm[] getAlarmSnapshot() {
+		synchronized (alarmLock) {
+			return alarms.toArray(new IAlarm[alarms.size()]);
+		}
+	}
+
+	/**
+	 * Gets the alarm that is due next. This is the head of the sorted alarm
+	 * list which is tracked whenever the list is sorted or changed, so this
+	 * doesn't need to access the list.
+	 * 
+	 * @return The next alarm or <code>null</code> if there are no alarms. Note
+	 *         that it may be inactive if all alarms are inactive.
+	 */
+	public IAlarm getNextAlarm() {
+		if (!nextAlarmKnown) {
+			updateNextAlarm();
+		}
+
+		return nextAlarm;
+	}
+
+	/**
+	 * Updates {@link #nextAlarm} from the head of the alarm list
+	 */
+	protected void updateNextAlarm() {
+		synchronized (alarmLock) {
+			nextAlarm = alarms.isEmpty() ? null : alarms.get(0);
+			nextAlarmKnown = true;
+		}
+	}
+
 	/**
 	 * Reconfigures the set alarms
 	 */
@@ -326,6 +405,8 @@ public class AlarmManager implements Serializable, IAlarmListener {
 				// counter for how often the system has failed to retrieve the
 				// time
 				int timeFailures = 0;
+				// the alarm that has been prepared but not yet been invoked
+				IAlarm preparedAlarm = null;
 
 				while (alarms.size() > 0 && alarms.get(0).isActive()) {
 					try {
@@ -363,22 +444,42 @@ public class AlarmManager implements Serializable, IAlarmListener {
 						}
 
 						long timeDiff = currentAlarm.getAlarmDate().getTime() - currentTime;
+						// the deadline in terms of the local clock
+						long deadline = System.currentTimeMillis() + timeDiff;
 
 						if (timeDiff > 0) {
 							// Don't lock while sleeping
 							alarmLock.unlock();
 
-							Thread.sleep(timeDiff);
+							if (timeDiff > PREPARATION_LEAD_TIME) {
+								Thread.sleep(timeDiff - PREPARATION_LEAD_TIME);
+							}
+
+							// give the alarm the chance to warm up so that it can
+							// start right at its deadline
+							preparedAlarm = currentAlarm;
+							prepareAlarm(preparedAlarm, deadline);
+
+							long remainingTime = deadline - System.currentTimeMillis();
+							if (remainingTime > 0) {
+								Thread.sleep(remainingTime);
+							}
 
 							alarmLock.lock();
 						} else {
-							if (timeDiff < 1000 * 60 * 120) {
-								// if time diff is greater than 120 minutes ->
-								// abort alarm (using "<" because of negative
-								// numbers)
+							if (timeDiff < -1000 * 60 * 120) {
+								// if the alarm is more than 120 minutes late ->
+								// abort alarm (timeDiff is negative)
 								rescheduleCurrentAlarm();
 								continue;
 							}
+
+							// the alarm is late already -> prepare it right away
+							// (without locking as it does file and audio I/O)
+							preparedAlarm = currentAlarm;
+							alarmLock.unlock();
+							prepareAlarm(preparedAlarm, deadline);
+							alarmLock.lock();
 						}
 
 						if (currentAlarm == null) {
@@ -392,11 +493,17 @@ public class AlarmManager implements Serializable, IAlarmListener {
 						}
 
 						// the respective time has passed
+						preparedAlarm = null;
 						currentAlarm.invoke();
 						notifyAlarmInvoked(currentAlarm);
 
 						rescheduleCurrentAlarm();
 					} catch (InterruptedException e) {
+						if (preparedAlarm != null) {
+							// the alarm won't be invoked by this thread anymore
+							preparedAlarm.cancelPreparation();
+						}
+
 						if (alarmLock.isHeldByCurrentThread()) {
 							alarmLock.unlock();
 						}
@@ -422,6 +529,26 @@ public class AlarmManager implements Serializable, IAlarmListener {
 		alarmThread.start();
 	}
 
+	/**
+	 * Prepares the given alarm. A failing preparation is only logged as the
+	 * alarm can still be invoked without it.
+	 * 
+	 * @param alarm
+	 *            The alarm to prepare
+	 * @param deadline
+	 *            The time the alarm is due at in terms of
+	 *            {@link System#currentTimeMillis()}
+	 */
+	protected void prepareAlarm(IAlarm alarm, long deadline) {
+		try {
+			alarm.prepare(deadline);
+		} catch (RuntimeException e) {
+			// don't let the alarm thread die -> the alarm will be invoked
+			// unprepared
+			e.printStackTrace();
+		}
+	}
+
 	/**
 	 * Reschedules the current alarm. This method gets called when the current alarm
 	 * has been invoked (or cancelled because it was way to late)
@@ -458,8 +585,6 @@ public class AlarmManager implements Serializable, IAlarmListener {
 		synchronized (getAlarmListener()) {
 			getAlarmListener().add(listener);
 		}
-
-		save();
 	}
 
 	/**
@@ -472,8 +597,6 @@ public class AlarmManager implements Serializable, IAlarmListener {
 		synchronized (getAlarmListener()) {
 			getAlarmListener().remove(listener);
 		}
-
-		save();
 	}
 
 	/**
@@ -482,24 +605,137 @@ public class AlarmManager implements Serializable, IAlarmListener {
 	 * alarm will be added to it's own unnamed group
 	 */
 	public List<AlarmGroup> getAllAlarmsAsGroups() {
-		List<AlarmGroup> groups = new ArrayList<AlarmGroup>();
+		synchronized (alarmLock) {
+			initializeGroupIndex();
 
-		for (IAlarm currentAlarm : getAlarms()) {
-			AlarmGroup currentGroup = currentAlarm.getGroup();
+			return new ArrayList<AlarmGroup>(groupIndex);
+		}
+	}
+
+	/**
+	 * Gets the amount of groups (see {@link #getAllAlarmsAsGroups()})
+	 */
+	public int getGroupCount() {
+		synchronized (alarmLock) {
+			initializeGroupIndex();
+
+			return groupIndex.size();
+		}
+	}
+
+	/**
+	 * Gets the group at the given index (see {@link #getAllAlarmsAsGroups()})
+	 * 
+	 * @param index
+	 *            The index of the group
+	 * @return The respective group or <code>null</code> if there is none at
+	 *         the given index
+	 */
+	public AlarmGroup getGroup(int index) {
+		synchronized (alarmLock) {
+			initializeGroupIndex();
+
+			if (index < 0 || index >= groupIndex.size()) {
+				return null;
+			}
+
+			return groupIndex.get(index);
+		}
+	}
+
+	/**
+	 * Creates the group index from the current alarms if it doesn't exist yet
+	 */
+	protected void initializeGroupIndex() {
+		synchronized (alarmLock) {
+			if (groupIndex != null) {
+				return;
+			}
+
+			groupIndex = new ArrayList<AlarmGroup>();
+			// the groups are compared by identity as their equals() compares
+			// all members
+			indexedGroups = new IdentityHashMap<IAlarm, AlarmGroup>();
+			groupMembers = new IdentityHashMap<AlarmGroup, Integer>();
+
+			for (IAlarm currentAlarm : alarms) {
+				indexAlarm(currentAlarm);
+			}
+		}
+	}
+
+	/**
+	 * Adds the group of the given alarm to the group index. If the alarm isn't
+	 * part of a group it is put into its own unnamed group.
+	 * 
+	 * @param alarm
+	 *            The alarm that has been added
+	 */
+	protected void indexAlarm(IAlarm alarm) {
+		synchronized (alarmLock) {
+			if (groupIndex == null) {
+				// the index is built from the alarms once it is needed
+				return;
+			}
+
+			if (indexedGroups.containsKey(alarm)) {
+				return;
+			}
+
+			AlarmGroup group = alarm.getGroup();
+
+			if (group == null) {
+				group = new AlarmGroup("");
+				group.addAlarm(alarm);
+			}
+
+			indexedGroups.put(alarm, group);
+
+			Integer members = groupMembers.get(group);
+
+			if (members == null) {
+				groupIndex.add(group);
+				members = 0;
+			}
+
+			groupMembers.put(group, members + 1);
+		}
+	}
 
-			if (currentGroup == null) {
-				currentGroup = new AlarmGroup("");
-				currentGroup.addAlarm(currentAlarm);
+	/**
+	 * Removes the group of the given alarm from the group index if the alarm
+	 * has been its last member
+	 * 
+	 * @param alarm
+	 *            The alarm that has been removed
+	 */
+	protected void unindexAlarm(IAlarm alarm) {
+		synchronized (alarmLock) {
+			if (groupIndex == null) {
+				return;
+			}
 
-				groups.add(currentGroup);
+			AlarmGroup group = indexedGroups.remove(alarm);
+
+			if (group == null) {
+				return;
+			}
+
+			int members = groupMembers.get(group) - 1;
+
+			if (members > 0) {
+				groupMembers.put(group, members);
 			} else {
-				if (!groups.contains(currentGroup)) {
-					groups.add(currentGroup);
+				groupMembers.remove(group);
+
+				for (int i = 0; i < groupIndex.size(); i++) {
+					if (groupIndex.get(i) == group) {
+						groupIndex.remove(i);
+						break;
+					}
 				}
 			}
 		}
-
-		return groups;
 	}
 
 	/**
@@ -572,8 +808,8 @@ public class AlarmManager implements Serializable, IAlarmListener {
 				if (failedSaves <= 3) {
 					this.save();
 				} else {
-					// It failed 3 times already -> abort the program and the UI
-					Display.getCurrent().close();
+					// It failed 3 times already -> abort. The exception reaches
+					// the UI's event loop which shuts the program down.
 					throw new RuntimeException("Unable to save the alarms");
 				}
 
@@ -641,6 +877,7 @@ public class AlarmManager implements Serializable, IAlarmListener {
 	public void alarmChanged(IAlarm alarm) {
 		if (alarm.equals(currentAlarm)) {
 			alarms.sort(ALARM_COMPARATOR);
+			updateNextAlarm();
 			queueAlarms();
 		} else {
 			reconfigureAlarms();
@@ -662,11 +899,15 @@ public class AlarmManager implements Serializable, IAlarmListener {
 			if (alarmsCopy.get(i).isOutDated()) {
 				alarms.remove(i - removals);
 				removals++;
+
+				unindexAlarm(alarmsCopy.get(i));
 			}
 		}
 
 		alarms.sort(ALARM_COMPARATOR);
 
+		updateNextAlarm();
+
 		alarmLock.unlock();
 	}
 
@@ -0,0 +1,22 @@
+package alarm;
+
+/**
+ * This enum contains the validation states of a track
+ * 
+ * @author Raven
+ *
+ */
+public enum ETrackState {
+	/**
+	 * The track hasn't been validated yet
+	 */
+	UNCHECKED,
+	/**
+	 * The track has been decoded completely without errors
+	 */
+	VALID,
+	/**
+	 * The track can't be decoded and won't be played
+	 */
+	BROKEN
+}
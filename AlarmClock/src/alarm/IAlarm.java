@@ -42,6 +42,22 @@ public interface IAlarm extends Serializable {
 	 */
 	public void removeAlarmListener(IAlarmListener listener);
 	
+	/**
+	 * Prepares this alarm for its upcoming invocation. This gets called shortly
+	 * before the alarm is due so that it can do any expensive setup in advance.
+	 * 
+	 * @param deadline
+	 *            The time (as given by {@link System#currentTimeMillis()}) this
+	 *            alarm is going to be invoked at
+	 */
+	public void prepare(long deadline);
+	
+	/**
+	 * Releases everything that has been set up by {@link #prepare(long)}
+	 * without invoking this alarm
+	 */
+	public void cancelPreparation();
+	
 	/**
 	 * Invokes this alarm
 	 */
@@ -111,4 +127,11 @@ public interface IAlarm extends Serializable {
 	 * Checks whether this alarm is currently active
 	 */
 	public boolean isActive();
+	
+	/**
+	 * Gets the version of this alarm. It changes whenever anything about this
+	 * alarm that might be displayed changes, so it can be used to invalidate
+	 * cached representations of it.
+	 */
+	public int getVersion();
 }
@@ -5,31 +5,18 @@ import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
-import java.util.Random;
-import java.util.Timer;
-import java.util.TimerTask;
-import java.util.concurrent.atomic.AtomicBoolean;
-
-import org.eclipse.swt.SWT;
-import org.eclipse.swt.events.DisposeEvent;
-import org.eclipse.swt.events.DisposeListener;
-import org.eclipse.swt.events.SelectionAdapter;
-import org.eclipse.swt.events.SelectionEvent;
-import org.eclipse.swt.graphics.Point;
-import org.eclipse.swt.graphics.Rectangle;
-import org.eclipse.swt.layout.GridData;
-import org.eclipse.swt.layout.GridLayout;
-import org.eclipse.swt.widgets.Button;
-import org.eclipse.swt.widgets.Display;
-import org.eclipse.swt.widgets.Label;
-import org.eclipse.swt.widgets.Shell;
 
+import audio.EFadeCurve;
+import audio.EToneType;
+import audio.GainStage;
+import audio.IFadeCurve;
+import audio.ITrackSource;
+import audio.PlaybackSession;
+import audio.PreparedTrack;
 import javazoom.jl.decoder.JavaLayerException;
-import javazoom.jl.player.FactoryRegistry;
-import javazoom.jl.player.advanced.AdvancedPlayer;
 import util.Util;
 
-public class MusicAlarm extends AbstractAlarm {
+public class MusicAlarm extends AbstractAlarm implements ITrackSource {
 
 	private static final long serialVersionUID = 3141128512303573874L;
 
@@ -42,26 +29,71 @@ public class MusicAlarm extends AbstractAlarm {
 	 */
 	public static int MUSIC_MAX_VOLUME = 100;
 	/**
-	 * The amount of steps in which the music will be faded in
+	 * The curve along which the music will be faded in
 	 */
-	public static int MUSIC_FADEIN_STEPS = 30;
+	public static IFadeCurve MUSIC_FADE_CURVE = EFadeCurve.LOGARITHMIC;
 	/**
-	 * The timer used to fade in the music
+	 * The amount of seconds of the first track that are decoded in advance
+	 * when the alarm gets prepared
 	 */
-	protected static transient Timer fadeTimer;
+	public static double MUSIC_PREDECODE_TIME = 3.0;
+	/**
+	 * The position (in seconds) every track starts playing at. This can be
+	 * used to skip silent intros.
+	 */
+	public static double MUSIC_START_TIME = 0.0;
+	/**
+	 * The amount of seconds of music that are decoded ahead of the playback
+	 */
+	public static double MUSIC_BUFFER_TIME = 2.0;
+	/**
+	 * The priority of music alarms in the mixer. Playing alarms with a lower
+	 * priority are ducked.
+	 */
+	public static int MUSIC_PRIORITY = 0;
+	/**
+	 * Whether the tracks should be leveled to {@link #MUSIC_TARGET_LOUDNESS}
+	 */
+	public static boolean MUSIC_NORMALIZE = true;
+	/**
+	 * The loudness (in LUFS) the tracks are leveled to
+	 */
+	public static double MUSIC_TARGET_LOUDNESS = -18.0;
+	/**
+	 * The maximal amount of dB a quiet track is amplified by
+	 */
+	public static double MUSIC_MAX_BOOST = 12.0;
+	/**
+	 * The tone that is played if the music can't be played or
+	 * <code>null</code> if there shouldn't be a fallback
+	 */
+	public static EToneType MUSIC_FALLBACK_TONE = EToneType.BEEPS;
+	/**
+	 * The time (in seconds) it will take the fallback tone to fade in to full
+	 * volume. It is kept short as the tone has to be heard right away.
+	 */
+	public static double MUSIC_FALLBACK_FADE_IN_TIME = 0.5;
+	/**
+	 * The curve along which the fallback tone will be faded in
+	 */
+	public static IFadeCurve MUSIC_FALLBACK_FADE_CURVE = EFadeCurve.LINEAR;
 
 	/**
 	 * The music source file or directory
 	 */
 	private File musicSource;
 	/**
-	 * The active player playing the music
+	 * The playlist of the music source
+	 */
+	private transient volatile Playlist playlist;
+	/**
+	 * The session that has been prepared for the next invocation
 	 */
-	private transient AdvancedPlayer activePlayer;
+	private transient volatile PlaybackSession preparedSession;
 	/**
-	 * Indicates that the alarm has been terminated
+	 * The session of the running invocation
 	 */
-	private AtomicBoolean terminated;
+	private transient volatile PlaybackSession activeSession;
 
 
 	public MusicAlarm(Date alarmDate, ERepetition repetition, File musicSource) throws Exception {
@@ -70,12 +102,14 @@ public class MusicAlarm extends AbstractAlarm {
 		try {
 			checkMusicSource(musicSource);
 		} catch (IllegalArgumentException e) {
-			throw new Exception("The music dir does not contain any music!");
+			// the alarm will play the fallback tone until there is music
+			System.err.println("No music for the alarm: " + e.getMessage());
 		}
 
-		terminated = new AtomicBoolean(false);
-
 		this.musicSource = musicSource;
+
+		// start validating the music right away
+		updatePlaylist();
 	}
 
 	/**
@@ -151,101 +185,170 @@ public class MusicAlarm extends AbstractAlarm {
 	}
 
 	@Override
-	protected void executeAlarm() {
-		terminated.set(false);
-		List<File> musicFiles = getMusicFiles(musicSource);
+	public void prepare(long deadline) {
+		cancelPreparation();
 
-		int failures = 0;
+		updatePlaylist();
 
-		if (fadeTimer == null) {
-			try {
-				startMusicFading();
-			} catch (IOException e) {
-				e.printStackTrace();
-			}
+		// decode the beginning of the first track and open the line in advance
+		// so that the playback can start right at the deadline
+		PlaybackSession session = createSession();
+		session.prepare(deadline);
+
+		preparedSession = session;
+	}
+
+	@Override
+	public void cancelPreparation() {
+		PlaybackSession session = preparedSession;
+		preparedSession = null;
+
+		if (session != null) {
+			session.stop();
 		}
+	}
 
-		while (!terminated.get()) {
-			try {
-				activePlayer = new AdvancedPlayer(
-						musicFiles.get(new Random().nextInt(musicFiles.size())).toURI().toURL().openStream(),
-						FactoryRegistry.systemRegistry().createAudioDevice());
+	/**
+	 * Creates a new playback session for this alarm
+	 */
+	protected PlaybackSession createSession() {
+		PlaybackSession session = new PlaybackSession(
+				"alarm \"" + ((getGroup() == null) ? "" : getGroup().getName()) + "\"", this,
+				new GainStage(MUSIC_FADE_CURVE, MUSIC_FADE_IN_TIME, MUSIC_MAX_VOLUME / 100f), MUSIC_PRIORITY,
+				MUSIC_BUFFER_TIME);
 
-				activePlayer.play();
-			} catch (JavaLayerException | IOException e) {
-				e.printStackTrace();
+		session.setFallbackTone(MUSIC_FALLBACK_TONE,
+				new GainStage(MUSIC_FALLBACK_FADE_CURVE, MUSIC_FALLBACK_FADE_IN_TIME, MUSIC_MAX_VOLUME / 100f));
 
-				if (failures > 10) {
-					// terminate on too many failures
-					// TODO log
-					terminate();
-				}
+		return session;
+	}
 
-				failures++;
-			}
+	/**
+	 * Synchronizes the playlist of the music source with the music files that
+	 * are currently present and validates the new files in the background. If
+	 * the music source is missing, the playlist is kept as it is but the alarm
+	 * won't use it.
+	 */
+	protected void updatePlaylist() {
+		List<File> files;
+
+		try {
+			files = getMusicFiles(musicSource);
+		} catch (IllegalArgumentException e) {
+			// fall back to the tone
+			e.printStackTrace();
+			playlist = null;
+			return;
+		}
+
+		MusicLibrary library = MusicLibrary.getLibrary();
+		Playlist playlist = library.getPlaylist(musicSource);
+
+		if (playlist.update(files)) {
+			library.saveLater();
+		}
+
+		TrackValidator.getValidator().validate(playlist);
+
+		this.playlist = playlist;
+	}
+
+	@Override
+	public PreparedTrack nextTrack() throws IOException, JavaLayerException {
+		Playlist playlist = this.playlist;
+		TrackInfo track = (playlist == null) ? null : playlist.next();
+
+		if (track == null) {
+			return null;
+		}
+
+		// the play count has changed
+		MusicLibrary.getLibrary().saveLater();
+
+		try {
+			PreparedTrack prepared = PreparedTrack.open(track.getFile(), MUSIC_START_TIME, MUSIC_PREDECODE_TIME);
+			prepared.setGain(getLevelingGain(track));
+
+			return prepared;
+		} catch (IOException | JavaLayerException | RuntimeException e) {
+			// skip it for now - the error may be temporary (or caused by
+			// MUSIC_START_TIME), so the validator decides about quarantining it
+			TrackValidator.getValidator().validate(playlist, track);
+			throw e;
 		}
 	}
 
 	/**
-	 * starts fading in the music
-	 * 
-	 * @throws IOException
+	 * Gets the gain that levels the given track to
+	 * {@link #MUSIC_TARGET_LOUDNESS}. Like ReplayGain the gain is limited so
+	 * that the peak of the track doesn't clip.
 	 */
-	protected void startMusicFading() throws IOException {
-		// set volume to 0
-		new ProcessBuilder(new String[] { "amixer", "-M", "set", "PCM", "--", "0%" }).start();
-
-		fadeTimer = new Timer();
-		TimerTask fadeTask = new TimerTask() {
-			private int counter = 1;
-
-			@Override
-			public void run() {
-				if (counter > MUSIC_FADEIN_STEPS) {
-					// Stops the fade process
-					fadeTimer.cancel();
-					fadeTimer = null;
-					return;
-				}
+	protected float getLevelingGain(TrackInfo track) {
+		if (!MUSIC_NORMALIZE || !track.isLoudnessMeasured() || Double.isInfinite(track.getLoudness())) {
+			return 1f;
+		}
 
-				try {
-					new ProcessBuilder(new String[] { "amixer", "-M", "set", "PCM", // TODO use different audio output
-																					// name
-							MUSIC_MAX_VOLUME / MUSIC_FADEIN_STEPS + "%+" }).start();
-				} catch (IOException e) {
-					e.printStackTrace();
-				}
+		double gain = Math.min(MUSIC_TARGET_LOUDNESS - track.getLoudness(), MUSIC_MAX_BOOST);
 
-				counter++;
-			}
-		};
+		// a zero peak leaves no headroom to compute -> only attenuate
+		double headroom = (track.getPeak() > 0) ? -20 * Math.log10(track.getPeak()) : 0;
+		gain = Math.min(gain, headroom);
 
-		fadeTimer.scheduleAtFixedRate(fadeTask, 0, (long) ((MUSIC_FADE_IN_TIME / MUSIC_FADEIN_STEPS) * 1000));
+		return (float) Math.pow(10, gain / 20);
+	}
+
+	@Override
+	public void trackSkipped(File file) {
+		Playlist playlist = this.playlist;
+
+		if (playlist != null) {
+			playlist.trackSkipped(file);
+
+			MusicLibrary.getLibrary().saveLater();
+		}
+	}
+
+	@Override
+	protected void executeAlarm() {
+		PlaybackSession session = preparedSession;
+		preparedSession = null;
+
+		if (session == null) {
+			// the alarm hasn't been prepared
+			updatePlaylist();
+			session = createSession();
+		}
+
+		PlaybackSession previousSession = activeSession;
+		activeSession = session;
+
+		if (previousSession != null) {
+			// the new invocation takes over
+			previousSession.stop();
+		}
+
+		session.start();
 	}
 
 	@Override
 	public void terminate() {
-		terminated.set(true);
+		PlaybackSession session = activeSession;
+		activeSession = null;
 
-		if (activePlayer != null) {
-			synchronized (activePlayer) {
-				activePlayer.close();
-			}
+		if (session != null) {
+			session.stop();
 		}
 	}
 
 	/**
 	 * Gets the default music source directory which is a directory named
 	 * "AlarmMusic" in the music directory or if that doesn't exist the music
-	 * directory itself.
+	 * directory itself. The directory may not exist in which case the alarms
+	 * play the fallback tone.
 	 */
 	public static File getDefaultMusicDir() {
 		File musicDir = new File(System.getProperty("user.home") + File.separator + "Music");
 
-		if (!musicDir.exists()) {
-			throw new IllegalStateException("Music directory could not be found!");
-		}
-
 		File alarmDir = new File(musicDir.getAbsolutePath() + File.separator + "AlarmMusic");
 
 		if (alarmDir.exists()) {
@@ -255,100 +358,14 @@ public class MusicAlarm extends AbstractAlarm {
 		}
 	}
 
-	/**
-	 * Gets the currently active music player
-	 * 
-	 * @return The active player or <code>null</code> if none could be found
-	 */
-	protected AdvancedPlayer getActivePlayer() {
-		return activePlayer;
-	}
-
 	/**
 	 * Play the next song
 	 */
 	public void nextSong() {
-		if (activePlayer != null) {
-			activePlayer.close();
-		}
-	}
+		PlaybackSession session = activeSession;
 
-	protected void openAlarmShell() {
-		new Thread(new Runnable() {
-
-			@Override
-			public void run() {
-				final Display display = Display.getDefault();
-
-				AtomicBoolean selfCreated = new AtomicBoolean(display.getThread().equals(Thread.currentThread()));
-
-				display.asyncExec(new Runnable() {
-
-					@Override
-					public void run() {
-						final Shell shell = new Shell(display, SWT.ON_TOP);
-
-						shell.setText("Alarm - " + getGroup().getName());
-						GridLayout layout = new GridLayout(2, true);
-						layout.verticalSpacing = 20;
-						layout.marginWidth = 15;
-						layout.marginHeight = 15;
-						shell.setLayout(layout);
-
-						Label title = new Label(shell, SWT.CENTER);
-						title.setText("Alarm - " + getGroup().getName());
-						title.setLayoutData(new GridData(SWT.FILL, SWT.FILL, true, true, 2, 1));
-						Util.magnifyFont(title, 2.5);
-
-						Button terminate = new Button(shell, SWT.PUSH);
-						terminate.setText("Terminate");
-						terminate.addSelectionListener(new SelectionAdapter() {
-							@Override
-							public void widgetSelected(SelectionEvent e) {
-								shell.dispose();
-							}
-						});
-						Util.magnifyFont(terminate, 2);
-						terminate.setLayoutData(new GridData(SWT.FILL, SWT.FILL, true, true));
-
-						Button next = new Button(shell, SWT.PUSH);
-						next.setText("Next");
-						next.addSelectionListener(new SelectionAdapter() {
-							@Override
-							public void widgetSelected(SelectionEvent e) {
-								nextSong();
-							}
-						});
-						Util.magnifyFont(next, 2);
-						next.setLayoutData(new GridData(SWT.FILL, SWT.FILL, true, true));
-
-						shell.addDisposeListener(new DisposeListener() {
-
-							@Override
-							public void widgetDisposed(DisposeEvent e) {
-								terminate();
-							}
-						});
-
-						shell.pack();
-
-						// center window
-						Rectangle areaSize = display.getClientArea();
-						shell.setLocation(new Point(areaSize.width / 2 - shell.getSize().x / 2,
-								areaSize.height / 2 - shell.getSize().y / 2));
-
-						shell.open();
-
-						if (selfCreated.get()) {
-							while (!display.isDisposed()) {
-								if (!display.readAndDispatch()) {
-									display.sleep();
-								}
-							}
-						}
-					}
-				});
-			}
-		}).start();
+		if (session != null) {
+			session.skipTrack();
+		}
 	}
 }
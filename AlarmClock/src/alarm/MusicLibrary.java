@@ -0,0 +1,150 @@
+package alarm;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.HashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * The index of the music used by the alarms. It keeps a {@link Playlist} per
+ * music source and is saved to disk so that the playlists survive restarts.
+ *
+ * @author Raven
+ *
+ */
+public class MusicLibrary implements Serializable {
+
+	private static final long serialVersionUID = -1797105658838167219L;
+
+	/**
+	 * The path the library is saved at
+	 */
+	public static final String SAVE_PATH = AlarmManager.PROGRAM_DIR + File.separator + "MusicLibrary.ser";
+
+	/**
+	 * The library instance
+	 */
+	protected static MusicLibrary LIBRARY;
+
+	/**
+	 * The playlists mapped to their music source
+	 */
+	protected HashMap<File, Playlist> playlists;
+	/**
+	 * Indicates that a save has been scheduled but not yet been started
+	 */
+	protected transient AtomicBoolean savePending;
+
+
+	protected MusicLibrary() {
+		playlists = new HashMap<File, Playlist>();
+		savePending = new AtomicBoolean();
+	}
+
+	/**
+	 * Gets the library instance. It is loaded from disk on the first call.
+	 */
+	public static synchronized MusicLibrary getLibrary() {
+		if (LIBRARY == null) {
+			if (new File(SAVE_PATH).exists()) {
+				LIBRARY = load();
+			}
+
+			if (LIBRARY == null) {
+				LIBRARY = new MusicLibrary();
+			}
+		}
+
+		return LIBRARY;
+	}
+
+	/**
+	 * Gets the playlist of the given music source. If there is none, an empty
+	 * one is created.
+	 *
+	 * @param source
+	 *            The music source file or directory
+	 */
+	public synchronized Playlist getPlaylist(File source) {
+		File key = source.getAbsoluteFile();
+		Playlist playlist = playlists.get(key);
+
+		if (playlist == null) {
+			playlist = new Playlist();
+			playlists.put(key, playlist);
+		}
+
+		return playlist;
+	}
+
+	/**
+	 * Saves this library in the background. Saves that are requested while
+	 * another one is pending are merged into it.
+	 */
+	public void saveLater() {
+		if (!savePending.compareAndSet(false, true)) {
+			return;
+		}
+
+		new Thread(new Runnable() {
+
+			@Override
+			public void run() {
+				savePending.set(false);
+
+				save();
+			}
+		}, "MusicLibrary-save").start();
+	}
+
+	/**
+	 * Saves this library to disk
+	 */
+	protected synchronized void save() {
+		try {
+			new File(AlarmManager.PROGRAM_DIR).mkdirs();
+
+			// write to temp-file first
+			File tempFile = new File(SAVE_PATH + ".new.tmp");
+
+			ObjectOutputStream out = new ObjectOutputStream(new FileOutputStream(tempFile));
+			out.writeObject(this);
+			out.close();
+
+			Files.move(tempFile.toPath(), new File(SAVE_PATH).toPath(), StandardCopyOption.REPLACE_EXISTING);
+		} catch (IOException e) {
+			e.printStackTrace();
+		}
+	}
+
+	/**
+	 * Loads the saved library from disk
+	 *
+	 * @return The loaded library or <code>null</code> if it couldn't be loaded
+	 */
+	protected static MusicLibrary load() {
+		MusicLibrary library = null;
+		try {
+			ObjectInputStream in = new ObjectInputStream(new FileInputStream(SAVE_PATH));
+			library = (MusicLibrary) in.readObject();
+			in.close();
+		} catch (IOException | ClassNotFoundException e) {
+			e.printStackTrace();
+		}
+
+		return library;
+	}
+
+	private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+		in.defaultReadObject();
+
+		savePending = new AtomicBoolean();
+	}
+}
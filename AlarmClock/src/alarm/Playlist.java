@@ -0,0 +1,408 @@
+package alarm;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * The tracks of a music source in shuffled order. Every track is played once
+ * before any track is repeated and the order is kept across alarms.
+ * Optionally tracks that tend to get skipped are moved to the end of the
+ * current round.<br>
+ * Only tracks that have been validated are played. Unchecked tracks are only
+ * used as long as there are no valid ones and broken tracks are never played.
+ *
+ * @author Raven
+ *
+ */
+public class Playlist implements Serializable {
+
+	private static final long serialVersionUID = 5512604906322930962L;
+
+	/**
+	 * Whether tracks that tend to get skipped should be played later
+	 */
+	public static boolean PLAYLIST_WEIGHTED = true;
+	/**
+	 * The minimal chance of a track to be played when it is its turn
+	 */
+	public static double PLAYLIST_MIN_WEIGHT = 0.1;
+	/**
+	 * The maximal amount of times a pick may be deferred
+	 */
+	protected static final int MAX_DEFERRALS = 8;
+
+	/**
+	 * The play order of the tracks that are in the same validation state. The
+	 * tracks before {@link #position} have been played in the current round.
+	 *
+	 * @author Raven
+	 *
+	 */
+	protected static class TrackOrder implements Serializable {
+
+		private static final long serialVersionUID = -2185014378924405307L;
+
+		/**
+		 * The tracks in the order they are played in
+		 */
+		protected TrackInfo[] tracks;
+		/**
+		 * The amount of tracks in {@link #tracks}
+		 */
+		protected int size;
+		/**
+		 * The position of the next track in {@link #tracks}
+		 */
+		protected int position;
+
+
+		protected TrackOrder(int capacity) {
+			tracks = new TrackInfo[Math.max(1, capacity)];
+		}
+	}
+
+	/**
+	 * The tracks of this playlist
+	 */
+	protected ArrayList<TrackInfo> tracks;
+	/**
+	 * The tracks mapped to their files
+	 */
+	protected HashMap<File, TrackInfo> trackMap;
+	/**
+	 * The play order of the valid tracks
+	 */
+	protected TrackOrder validOrder;
+	/**
+	 * The play order of the unchecked tracks
+	 */
+	protected TrackOrder uncheckedOrder;
+	/**
+	 * The track that has been played last or <code>null</code>
+	 */
+	protected TrackInfo lastTrack;
+	/**
+	 * The random generator used for shuffling
+	 */
+	protected transient Random random;
+
+
+	public Playlist() {
+		tracks = new ArrayList<TrackInfo>();
+		trackMap = new HashMap<File, TrackInfo>();
+		validOrder = new TrackOrder(0);
+		uncheckedOrder = new TrackOrder(0);
+	}
+
+	/**
+	 * Updates this playlist to contain exactly the given files. The statistics
+	 * of the tracks that are kept are preserved. If the files have changed,
+	 * a new round is started.
+	 *
+	 * @param files
+	 *            The music files
+	 * @return Whether this playlist has changed
+	 */
+	public synchronized boolean update(List<File> files) {
+		if (files.size() == tracks.size()) {
+			boolean changed = false;
+
+			for (File file : files) {
+				if (!trackMap.containsKey(file)) {
+					changed = true;
+					break;
+				}
+			}
+
+			if (!changed) {
+				return false;
+			}
+		}
+
+		ArrayList<TrackInfo> newTracks = new ArrayList<TrackInfo>(files.size());
+		HashMap<File, TrackInfo> newTrackMap = new HashMap<File, TrackInfo>();
+
+		for (File file : files) {
+			TrackInfo track = trackMap.get(file);
+
+			if (track == null) {
+				track = new TrackInfo(file);
+			}
+
+			if (newTrackMap.put(file, track) == null) {
+				newTracks.add(track);
+			}
+		}
+
+		tracks = newTracks;
+		trackMap = newTrackMap;
+
+		createOrders();
+		lastTrack = null;
+
+		return true;
+	}
+
+	/**
+	 * Creates the play orders from the states of the tracks. They start a new
+	 * round once the next track is picked.
+	 */
+	protected void createOrders() {
+		validOrder = new TrackOrder(tracks.size());
+		uncheckedOrder = new TrackOrder(tracks.size());
+
+		for (TrackInfo track : tracks) {
+			track.slot = -1;
+
+			TrackOrder order = getOrder(track.getState());
+
+			if (order != null) {
+				track.slot = order.size;
+				order.tracks[order.size++] = track;
+			}
+		}
+
+		validOrder.position = validOrder.size;
+		uncheckedOrder.position = uncheckedOrder.size;
+	}
+
+	/**
+	 * Picks the next track to play and counts it as played. Only the tracks
+	 * that are playable right now are visited, so a pick is amortized O(1)
+	 * regardless of how many tracks are unchecked or broken.
+	 *
+	 * @return The picked track or <code>null</code> if this playlist doesn't
+	 *         contain any playable tracks
+	 */
+	public synchronized TrackInfo next() {
+		// prefer the valid tracks as long as there are any
+		TrackOrder order = (validOrder.size > 0) ? validOrder : uncheckedOrder;
+
+		if (order.size == 0) {
+			return null;
+		}
+
+		int deferrals = 0;
+
+		while (true) {
+			if (order.position >= order.size) {
+				shuffle(order);
+			}
+
+			TrackInfo track = order.tracks[order.position];
+			int remaining = order.size - order.position;
+
+			if (track == lastTrack && remaining > 1) {
+				// don't repeat the last track of the previous round
+				swap(order, order.position, order.position + 1 + getRandom().nextInt(remaining - 1));
+				continue;
+			}
+
+			if (!PLAYLIST_WEIGHTED || remaining == 1 || deferrals >= MAX_DEFERRALS
+					|| getRandom().nextDouble() < getWeight(track)) {
+				lastTrack = track;
+				order.position++;
+				track.playCount++;
+
+				return track;
+			}
+
+			// play the track later in this round
+			swap(order, order.position, order.position + 1 + getRandom().nextInt(remaining - 1));
+			deferrals++;
+		}
+	}
+
+	/**
+	 * Counts the track of the given file as skipped
+	 *
+	 * @param file
+	 *            The file of the skipped track
+	 */
+	public synchronized void trackSkipped(File file) {
+		TrackInfo track = trackMap.get(file);
+
+		if (track != null) {
+			track.skipCount++;
+		}
+	}
+
+	/**
+	 * Sets the validation state of the given track
+	 *
+	 * @param track
+	 *            The track
+	 * @param state
+	 *            The new state
+	 */
+	public synchronized void setState(TrackInfo track, ETrackState state) {
+		if (trackMap.get(track.getFile()) == track && track.getState() != state) {
+			// move the track to the play order of its new state
+			TrackOrder previousOrder = getOrder(track.getState());
+			if (previousOrder != null) {
+				remove(previousOrder, track);
+			}
+
+			TrackOrder newOrder = getOrder(state);
+			if (newOrder != null) {
+				add(newOrder, track);
+			}
+		}
+
+		track.state = state;
+
+		if (state != ETrackState.UNCHECKED) {
+			track.checkedLength = track.getFile().length();
+			track.checkedModified = track.getFile().lastModified();
+		}
+	}
+
+	/**
+	 * Sets the measured loudness of the given track
+	 *
+	 * @param track
+	 *            The track
+	 * @param loudness
+	 *            The integrated loudness in LUFS
+	 * @param peak
+	 *            The sample peak relative to full scale
+	 */
+	public synchronized void setLoudness(TrackInfo track, double loudness, double peak) {
+		track.loudness = loudness;
+		track.peak = peak;
+		track.loudnessMeasured = true;
+	}
+
+	/**
+	 * Gets a copy of the tracks of this playlist
+	 */
+	public synchronized List<TrackInfo> getTracks() {
+		return new ArrayList<TrackInfo>(tracks);
+	}
+
+	/**
+	 * Gets the chance of the given track to be played when it is its turn
+	 */
+	protected double getWeight(TrackInfo track) {
+		return Math.max(PLAYLIST_MIN_WEIGHT, track.getCompletionRate());
+	}
+
+	/**
+	 * Gets the play order of the tracks with the given state
+	 *
+	 * @return The order or <code>null</code> if tracks with that state aren't
+	 *         played
+	 */
+	protected TrackOrder getOrder(ETrackState state) {
+		switch (state) {
+			case VALID:
+				return validOrder;
+			case UNCHECKED:
+				return uncheckedOrder;
+			default:
+				return null;
+		}
+	}
+
+	/**
+	 * Adds the given track to the given order. It is placed at a random
+	 * position among the tracks that haven't been played in this round.
+	 */
+	protected void add(TrackOrder order, TrackInfo track) {
+		if (order.size == order.tracks.length) {
+			order.tracks = Arrays.copyOf(order.tracks, order.size * 2);
+		}
+
+		track.slot = order.size;
+		order.tracks[order.size++] = track;
+
+		swap(order, track.slot, order.position + getRandom().nextInt(order.size - order.position));
+	}
+
+	/**
+	 * Removes the given track from the given order
+	 */
+	protected void remove(TrackOrder order, TrackInfo track) {
+		int slot = track.slot;
+
+		if (slot < order.position) {
+			// swap it with the last played track to keep the played ones
+			// together
+			swap(order, slot, order.position - 1);
+			slot = order.position - 1;
+			order.position--;
+		}
+
+		swap(order, slot, order.size - 1);
+		order.tracks[--order.size] = null;
+		track.slot = -1;
+	}
+
+	/**
+	 * Shuffles the given order (Fisher-Yates) and starts a new round
+	 */
+	protected void shuffle(TrackOrder order) {
+		for (int i = order.size - 1; i > 0; i--) {
+			swap(order, i, getRandom().nextInt(i + 1));
+		}
+
+		order.position = 0;
+	}
+
+	/**
+	 * Swaps the given positions of the given order
+	 */
+	protected void swap(TrackOrder order, int first, int second) {
+		TrackInfo track = order.tracks[first];
+		order.tracks[first] = order.tracks[second];
+		order.tracks[second] = track;
+
+		order.tracks[first].slot = first;
+		order.tracks[second].slot = second;
+	}
+
+	/**
+	 * Gets the random generator
+	 */
+	protected Random getRandom() {
+		if (random == null) {
+			random = new Random();
+		}
+
+		return random;
+	}
+
+	/**
+	 * Gets the amount of tracks in this playlist
+	 */
+	public synchronized int size() {
+		return tracks.size();
+	}
+
+	private synchronized void writeObject(ObjectOutputStream out) throws IOException {
+		// don't serialize while the playlist is being modified
+		out.defaultWriteObject();
+	}
+
+	private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+		in.defaultReadObject();
+
+		// the positions of the tracks aren't serialized
+		for (TrackInfo track : tracks) {
+			track.slot = -1;
+		}
+		for (TrackOrder order : new TrackOrder[] { validOrder, uncheckedOrder }) {
+			for (int i = 0; i < order.size; i++) {
+				order.tracks[i].slot = i;
+			}
+		}
+	}
+}
@@ -0,0 +1,137 @@
+package alarm;
+
+import java.io.File;
+import java.io.Serializable;
+
+/**
+ * The entry of a music file in the {@link MusicLibrary}
+ *
+ * @author Raven
+ *
+ */
+public class TrackInfo implements Serializable {
+
+	private static final long serialVersionUID = -4262399101546383386L;
+
+	/**
+	 * The music file
+	 */
+	protected File file;
+	/**
+	 * The amount of times this track has been played
+	 */
+	protected int playCount;
+	/**
+	 * The amount of times this track has been skipped
+	 */
+	protected int skipCount;
+	/**
+	 * The validation state of this track
+	 */
+	protected ETrackState state;
+	/**
+	 * The size of the file at the time it has been validated
+	 */
+	protected long checkedLength;
+	/**
+	 * The modification time of the file at the time it has been validated
+	 */
+	protected long checkedModified;
+	/**
+	 * The integrated loudness of this track in LUFS
+	 */
+	protected double loudness;
+	/**
+	 * Indicates whether the loudness of this track has been measured
+	 */
+	protected boolean loudnessMeasured;
+	/**
+	 * The highest absolute sample value of this track relative to full scale
+	 * or 0 if it hasn't been measured
+	 */
+	protected double peak;
+	/**
+	 * The position of this track in the play order of its playlist or -1 if it
+	 * isn't part of it
+	 */
+	protected transient int slot;
+
+
+	public TrackInfo(File file) {
+		this.file = file;
+
+		state = ETrackState.UNCHECKED;
+		slot = -1;
+	}
+
+	/**
+	 * Gets the music file
+	 */
+	public File getFile() {
+		return file;
+	}
+
+	/**
+	 * Gets the amount of times this track has been played
+	 */
+	public int getPlayCount() {
+		return playCount;
+	}
+
+	/**
+	 * Gets the amount of times this track has been skipped
+	 */
+	public int getSkipCount() {
+		return skipCount;
+	}
+
+	/**
+	 * Gets the validation state of this track
+	 */
+	public ETrackState getState() {
+		return state;
+	}
+
+	/**
+	 * Checks whether the file has been changed since it has been validated
+	 */
+	public boolean isChanged() {
+		return file.length() != checkedLength || file.lastModified() != checkedModified;
+	}
+
+	/**
+	 * Gets the integrated loudness of this track in LUFS
+	 * 
+	 * @see #isLoudnessMeasured()
+	 */
+	public double getLoudness() {
+		return loudness;
+	}
+
+	/**
+	 * Checks whether the loudness of this track has been measured
+	 */
+	public boolean isLoudnessMeasured() {
+		return loudnessMeasured;
+	}
+
+	/**
+	 * Gets the highest absolute sample value of this track relative to full
+	 * scale
+	 * 
+	 * @return The peak between 0 and 1 or 0 if it hasn't been measured (or the
+	 *         track is silent)
+	 * @see #isLoudnessMeasured()
+	 */
+	public double getPeak() {
+		return peak;
+	}
+
+	/**
+	 * Gets the fraction of the plays of this track that haven't been skipped.
+	 * Tracks that haven't been played yet count as never skipped.
+	 */
+	public double getCompletionRate() {
+		return (playCount - Math.min(skipCount, playCount) + 1) / (double) (playCount + 1);
+	}
+}
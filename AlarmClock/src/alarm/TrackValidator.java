@@ -0,0 +1,212 @@
+package alarm;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Set;
+import java.util.concurrent.LinkedBlockingQueue;
+
+import audio.AudioMixer;
+import audio.LoudnessMeter;
+import audio.PreparedTrack;
+import javazoom.jl.decoder.JavaLayerException;
+
+/**
+ * Validates the tracks of the playlists in the background by decoding them
+ * completely once. Tracks that can't be decoded are marked as broken so that
+ * the alarms never try to play them. The same pass measures the loudness of
+ * the valid tracks. The work is done by a fixed amount of worker threads.
+ *
+ * @author Raven
+ *
+ */
+public class TrackValidator implements Runnable {
+
+	/**
+	 * The minimal duration (in seconds) of a valid track
+	 */
+	public static double MIN_TRACK_DURATION = 1.0;
+	/**
+	 * The amount of milliseconds the validation is paused for while music is
+	 * playing
+	 */
+	public static long PLAYBACK_PAUSE = 5000;
+	/**
+	 * The amount of worker threads
+	 */
+	public static int WORKER_THREADS = Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+
+	/**
+	 * A track waiting for its validation
+	 *
+	 * @author Raven
+	 *
+	 */
+	protected static class Job {
+		/**
+		 * The playlist containing the track
+		 */
+		protected Playlist playlist;
+		/**
+		 * The track to validate
+		 */
+		protected TrackInfo track;
+
+
+		protected Job(Playlist playlist, TrackInfo track) {
+			this.playlist = playlist;
+			this.track = track;
+		}
+	}
+
+	/**
+	 * The validator instance
+	 */
+	protected static TrackValidator VALIDATOR;
+
+	/**
+	 * The tracks waiting for their validation
+	 */
+	protected LinkedBlockingQueue<Job> queue;
+	/**
+	 * The tracks that are queued or being validated
+	 */
+	protected Set<TrackInfo> pending;
+
+
+	protected TrackValidator() {
+		queue = new LinkedBlockingQueue<Job>();
+		pending = Collections.synchronizedSet(Collections.newSetFromMap(new IdentityHashMap<TrackInfo, Boolean>()));
+	}
+
+	/**
+	 * Gets the validator instance. The worker threads are started on the first
+	 * call.
+	 */
+	public static synchronized TrackValidator getValidator() {
+		if (VALIDATOR == null) {
+			VALIDATOR = new TrackValidator();
+
+			for (int i = 0; i < WORKER_THREADS; i++) {
+				Thread thread = new Thread(VALIDATOR, "TrackValidator-" + i);
+				thread.setDaemon(true);
+				// don't compete with the UI or the playback
+				thread.setPriority(Thread.MIN_PRIORITY);
+				thread.start();
+			}
+		}
+
+		return VALIDATOR;
+	}
+
+	/**
+	 * Queues all tracks of the given playlist that haven't been validated yet,
+	 * that have changed since their validation or whose loudness hasn't been
+	 * measured yet
+	 *
+	 * @param playlist
+	 *            The playlist to validate
+	 */
+	public void validate(Playlist playlist) {
+		for (TrackInfo track : playlist.getTracks()) {
+			boolean unmeasured = track.getState() == ETrackState.VALID && !track.isLoudnessMeasured();
+
+			if (track.getState() == ETrackState.UNCHECKED || track.isChanged() || unmeasured) {
+				validate(playlist, track);
+			}
+		}
+	}
+
+	/**
+	 * Queues the given track regardless of its state, e.g. because it has
+	 * failed to play. It is only quarantined if the check fails as well.
+	 *
+	 * @param playlist
+	 *            The playlist containing the track
+	 * @param track
+	 *            The track to validate
+	 */
+	public void validate(Playlist playlist, TrackInfo track) {
+		if (pending.add(track)) {
+			queue.add(new Job(playlist, track));
+		}
+	}
+
+	@Override
+	public void run() {
+		while (true) {
+			Job job = null;
+
+			try {
+				job = queue.take();
+
+				while (AudioMixer.getMixer().getChannelCount() > 0) {
+					// leave the CPU to the playback
+					Thread.sleep(PLAYBACK_PAUSE);
+				}
+
+				check(job.playlist, job.track);
+
+				MusicLibrary.getLibrary().saveLater();
+			} catch (InterruptedException e) {
+				e.printStackTrace();
+				return;
+			} catch (RuntimeException e) {
+				// a single track mustn't stop the validation of the others
+				System.err.println("Failed to validate " + job.track.getFile().getAbsolutePath() + ": " + e);
+				e.printStackTrace();
+			} finally {
+				if (job != null) {
+					pending.remove(job.track);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Decodes the given track completely and stores the result in the given
+	 * playlist
+	 *
+	 * @param playlist
+	 *            The playlist containing the track
+	 * @param track
+	 *            The track to check
+	 */
+	protected void check(Playlist playlist, TrackInfo track) {
+		PreparedTrack decoded = null;
+
+		try {
+			decoded = PreparedTrack.open(track.getFile(), 0);
+
+			LoudnessMeter meter = new LoudnessMeter(decoded.getFormat());
+			meter.process(decoded.getHead(), 0, decoded.getHeadLength());
+
+			long samples = decoded.getHeadLength();
+			int length;
+			while ((length = decoded.decodeFrame()) >= 0) {
+				meter.process(decoded.getFrameSamples(), 0, length);
+				samples += length;
+			}
+
+			double duration = samples / (double) decoded.getFormat().getChannels()
+					/ decoded.getFormat().getSampleRate();
+
+			if (duration < MIN_TRACK_DURATION) {
+				System.err.println("Quarantined " + track.getFile().getAbsolutePath() + ": too short");
+				playlist.setState(track, ETrackState.BROKEN);
+				return;
+			}
+
+			playlist.setLoudness(track, meter.getIntegratedLoudness(), meter.getSamplePeak());
+			playlist.setState(track, ETrackState.VALID);
+		} catch (IOException | JavaLayerException | RuntimeException e) {
+			// the decoder throws runtime exceptions on corrupt frames
+			System.err.println("Quarantined " + track.getFile().getAbsolutePath() + ": " + e);
+			playlist.setState(track, ETrackState.BROKEN);
+		} finally {
+			if (decoded != null) {
+				decoded.close();
+			}
+		}
+	}
+}
@@ -0,0 +1,254 @@
+package audio;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.LineUnavailableException;
+
+/**
+ * Mixes all playing {@link MixerChannel}s into a single {@link IAudioSink} so
+ * that concurrent playbacks only need one audio device and can't fail to get
+ * one because of each other. By default the mix is played on the sound card.
+ * Channels with a lower priority are ducked while a channel with a higher
+ * priority is playing.
+ *
+ * @author Raven
+ *
+ */
+public class AudioMixer {
+
+	/**
+	 * The format of the output line
+	 */
+	public static AudioFormat MIXER_FORMAT = new AudioFormat(44100, 16, 2, true, false);
+	/**
+	 * The gain applied to channels that are ducked
+	 */
+	public static float DUCKING_GAIN = 0.2f;
+	/**
+	 * The amount of seconds the output line buffers. The smaller this is, the
+	 * faster skips and new channels can be heard.
+	 */
+	public static double LINE_BUFFER_TIME = 0.2;
+	/**
+	 * The amount of milliseconds the output line is kept open after the last
+	 * channel has finished
+	 */
+	public static long IDLE_TIMEOUT = 30000;
+	/**
+	 * The amount of sample frames that are mixed at once
+	 */
+	protected static final int BLOCK_SIZE = 1152;
+
+	/**
+	 * The mixer instance
+	 */
+	protected static AudioMixer MIXER;
+
+	/**
+	 * The channels that are currently playing
+	 */
+	protected List<MixerChannel> channels;
+	/**
+	 * The sink the mix is written to
+	 */
+	protected IAudioSink sink;
+	/**
+	 * Indicates whether the mixing loop is running
+	 */
+	protected boolean running;
+
+
+	protected AudioMixer() {
+		channels = new ArrayList<MixerChannel>();
+		sink = new LineAudioSink();
+	}
+
+	/**
+	 * Gets the mixer instance
+	 */
+	public static synchronized AudioMixer getMixer() {
+		if (MIXER == null) {
+			MIXER = new AudioMixer();
+		}
+
+		return MIXER;
+	}
+
+	/**
+	 * Sets the sink the mix is written to. The current sink is closed.
+	 *
+	 * @param sink
+	 *            The new sink
+	 */
+	public synchronized void setSink(IAudioSink sink) {
+		this.sink.close();
+		this.sink = sink;
+	}
+
+	/**
+	 * Gets the sink the mix is written to
+	 */
+	public synchronized IAudioSink getSink() {
+		return sink;
+	}
+
+	/**
+	 * Opens the sink in advance so that channels can be heard right after they
+	 * have been added
+	 *
+	 * @throws LineUnavailableException
+	 *             If the audio device can't be opened
+	 * @throws IOException
+	 *             If the sink can't be opened for any other reason
+	 */
+	public synchronized void open() throws LineUnavailableException, IOException {
+		sink.open(MIXER_FORMAT, LINE_BUFFER_TIME);
+
+		// the loop closes the line again if it isn't used
+		startMixing();
+	}
+
+	/**
+	 * Adds the given channel to the mix
+	 *
+	 * @param channel
+	 *            The channel to add
+	 */
+	public synchronized void addChannel(MixerChannel channel) {
+		channels.add(channel);
+
+		startMixing();
+
+		notifyAll();
+	}
+
+	/**
+	 * Removes the given channel from the mix
+	 *
+	 * @param channel
+	 *            The channel to remove
+	 */
+	public synchronized void removeChannel(MixerChannel channel) {
+		channels.remove(channel);
+		channel.finish();
+	}
+
+	/**
+	 * Gets the amount of channels that are currently playing
+	 */
+	public synchronized int getChannelCount() {
+		return channels.size();
+	}
+
+	/**
+	 * Starts the mixing loop if it isn't running already
+	 */
+	protected synchronized void startMixing() {
+		if (running) {
+			return;
+		}
+
+		running = true;
+
+		PlaybackSession.EXECUTOR.execute(new Runnable() {
+
+			@Override
+			public void run() {
+				mix();
+			}
+		});
+	}
+
+	/**
+	 * The mixing loop. It runs until there haven't been any channels for
+	 * {@link #IDLE_TIMEOUT} milliseconds.
+	 */
+	protected void mix() {
+		int mixChannels = MIXER_FORMAT.getChannels();
+		float[] mix = new float[BLOCK_SIZE * mixChannels];
+		short[] samples = new short[mix.length];
+
+		try {
+			while (true) {
+				MixerChannel[] active;
+				IAudioSink sink;
+
+				synchronized (this) {
+					long idleStart = System.currentTimeMillis();
+
+					while (channels.isEmpty()) {
+						long remaining = IDLE_TIMEOUT - (System.currentTimeMillis() - idleStart);
+
+						if (remaining <= 0) {
+							this.sink.close();
+							running = false;
+							return;
+						}
+
+						wait(remaining);
+					}
+
+					active = channels.toArray(new MixerChannel[channels.size()]);
+					sink = this.sink;
+				}
+
+				sink.open(MIXER_FORMAT, LINE_BUFFER_TIME);
+				sink.start();
+
+				int maxPriority = Integer.MIN_VALUE;
+				for (MixerChannel channel : active) {
+					maxPriority = Math.max(maxPriority, channel.getPriority());
+				}
+
+				Arrays.fill(mix, 0f);
+				int frames = 0;
+
+				for (MixerChannel channel : active) {
+					int rendered = channel.render(mix, BLOCK_SIZE, MIXER_FORMAT, maxPriority);
+
+					if (rendered < 0) {
+						removeChannel(channel);
+					} else {
+						frames = Math.max(frames, rendered);
+					}
+				}
+
+				if (frames == 0) {
+					// nothing to play yet -> don't delay the channels by writing
+					// silence
+					synchronized (this) {
+						wait(2);
+					}
+					continue;
+				}
+
+				for (int i = 0; i < frames * mixChannels; i++) {
+					samples[i] = GainStage.clip(mix[i]);
+				}
+
+				sink.write(samples, 0, frames * mixChannels);
+
+				for (MixerChannel channel : active) {
+					channel.blockWritten();
+				}
+			}
+		} catch (InterruptedException | LineUnavailableException | IOException e) {
+			e.printStackTrace();
+
+			synchronized (this) {
+				// the playing channels can't be heard
+				for (MixerChannel channel : channels) {
+					channel.finish();
+				}
+				channels.clear();
+
+				sink.close();
+				running = false;
+			}
+		}
+	}
+}
@@ -0,0 +1,32 @@
+package audio;
+
+/**
+ * This enum contains the predefined fade curves
+ *
+ * @author Raven
+ *
+ */
+public enum EFadeCurve implements IFadeCurve {
+	/**
+	 * The gain rises linearly
+	 */
+	LINEAR {
+		@Override
+		public double getGain(double progress) {
+			return progress;
+		}
+	},
+	/**
+	 * The gain rises evenly on a decibel scale (from -60 dB to 0 dB) which
+	 * sounds like an even rise in loudness
+	 */
+	LOGARITHMIC {
+		@Override
+		public double getGain(double progress) {
+			double floor = Math.pow(10, -3);
+
+			// shift the curve so that it starts at 0
+			return (Math.pow(10, (progress - 1) * 3) - floor) / (1 - floor);
+		}
+	}
+}
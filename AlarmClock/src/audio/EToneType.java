@@ -0,0 +1,18 @@
+package audio;
+
+/**
+ * This enum contains the types of tones the {@link ToneChannel} can generate
+ * 
+ * @author Raven
+ *
+ */
+public enum EToneType {
+	/**
+	 * Short beeps of a fixed frequency
+	 */
+	BEEPS,
+	/**
+	 * A tone rising from the base frequency to the sweep frequency
+	 */
+	SWEEP
+}
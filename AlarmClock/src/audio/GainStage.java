@@ -0,0 +1,212 @@
+package audio;
+
+import javax.sound.sampled.AudioFormat;
+
+/**
+ * Applies a gain to 16 bit PCM samples. The gain fades in along a
+ * {@link IFadeCurve} and is tracked per sample frame so that the fade doesn't
+ * depend on how the samples are chunked. The curve is sampled into a table in
+ * advance so that no curve has to be evaluated during the playback.
+ *
+ * @author Raven
+ *
+ */
+public class GainStage {
+
+	/**
+	 * The amount of steps the fade curve is sampled with. The gain in between
+	 * is interpolated linearly.
+	 */
+	public static final int TABLE_SIZE = 1024;
+
+	/**
+	 * The sampled fade curve
+	 */
+	protected float[] curveTable;
+	/**
+	 * The sampled fade curve (scaled with {@link #targetGain})
+	 */
+	protected float[] gainTable;
+	/**
+	 * The gain after the fade has finished as given to the constructor
+	 */
+	protected float baseGain;
+	/**
+	 * The gain of the current track
+	 */
+	protected float trackGain;
+	/**
+	 * The gain after the fade has finished (the base gain combined with the
+	 * track gain)
+	 */
+	protected float targetGain;
+	/**
+	 * The duration of the fade in seconds
+	 */
+	protected double fadeTime;
+	/**
+	 * The duration of the fade in sample frames
+	 */
+	protected long fadeFrames;
+	/**
+	 * The amount of sample frames that have been processed
+	 */
+	protected long position;
+	/**
+	 * The sample rate of the processed samples
+	 */
+	protected float sampleRate;
+	/**
+	 * The amount of channels of the processed samples
+	 */
+	protected int channels;
+
+
+	/**
+	 * Creates a new gain stage
+	 *
+	 * @param curve
+	 *            The curve to fade in with
+	 * @param fadeTime
+	 *            The duration of the fade in seconds. If this is 0 the target
+	 *            gain will be applied right away.
+	 * @param targetGain
+	 *            The gain after the fade has finished (1 being the original
+	 *            volume)
+	 */
+	public GainStage(IFadeCurve curve, double fadeTime, float targetGain) {
+		if (fadeTime < 0 || targetGain < 0) {
+			throw new IllegalArgumentException("The fade time and gain must not be negative!");
+		}
+
+		this.fadeTime = fadeTime;
+		this.baseGain = targetGain;
+
+		curveTable = new float[TABLE_SIZE + 1];
+		for (int i = 0; i <= TABLE_SIZE; i++) {
+			curveTable[i] = (float) curve.getGain(i / (double) TABLE_SIZE);
+		}
+		gainTable = new float[TABLE_SIZE + 1];
+
+		channels = 1;
+
+		setTrackGain(1f);
+	}
+
+	/**
+	 * Sets the gain of the track that is going to be processed. It is combined
+	 * with the target gain in advance so that it doesn't add any work per
+	 * sample.
+	 *
+	 * @param trackGain
+	 *            The gain of the track (1 being the original volume)
+	 */
+	public void setTrackGain(float trackGain) {
+		if (trackGain == this.trackGain) {
+			return;
+		}
+
+		this.trackGain = trackGain;
+		targetGain = baseGain * trackGain;
+
+		for (int i = 0; i <= TABLE_SIZE; i++) {
+			gainTable[i] = curveTable[i] * targetGain;
+		}
+	}
+
+	/**
+	 * Sets the format of the samples that are going to be processed. If the
+	 * sample rate changes in the middle of the fade, the fade continues at the
+	 * same relative position.
+	 *
+	 * @param format
+	 *            The new format
+	 */
+	public void setFormat(AudioFormat format) {
+		if (sampleRate > 0 && format.getSampleRate() != sampleRate) {
+			position = (long) (position * (format.getSampleRate() / sampleRate));
+		}
+
+		sampleRate = format.getSampleRate();
+		channels = format.getChannels();
+		fadeFrames = (long) (fadeTime * sampleRate);
+	}
+
+	/**
+	 * Applies the gain to the given samples
+	 *
+	 * @param samples
+	 *            The interleaved samples to process
+	 * @param offset
+	 *            The offset of the first sample to process
+	 * @param length
+	 *            The amount of samples to process
+	 */
+	public void process(short[] samples, int offset, int length) {
+		int end = offset + length;
+		int index = offset;
+
+		if (position < fadeFrames) {
+			double step = TABLE_SIZE / (double) fadeFrames;
+
+			while (index < end && position < fadeFrames) {
+				double tablePosition = position * step;
+				int tableIndex = (int) tablePosition;
+				float fraction = (float) (tablePosition - tableIndex);
+				float gain = gainTable[tableIndex] + (gainTable[tableIndex + 1] - gainTable[tableIndex]) * fraction;
+
+				for (int i = 0; i < channels && index < end; i++) {
+					samples[index] = clip(samples[index] * gain);
+					index++;
+				}
+
+				position++;
+			}
+		}
+
+		if (index < end) {
+			position += (end - index) / channels;
+
+			if (targetGain == 1f) {
+				// nothing to do
+				return;
+			}
+
+			for (; index < end; index++) {
+				samples[index] = clip(samples[index] * targetGain);
+			}
+		}
+	}
+
+	/**
+	 * Clips the given value to the range of a 16 bit sample
+	 */
+	protected static short clip(float value) {
+		if (value > Short.MAX_VALUE) {
+			return Short.MAX_VALUE;
+		}
+		if (value < Short.MIN_VALUE) {
+			return Short.MIN_VALUE;
+		}
+
+		return (short) value;
+	}
+
+	/**
+	 * Checks whether the fade is still in progress
+	 */
+	public boolean isFading() {
+		return position < fadeFrames;
+	}
+
+	/**
+	 * Gets the gain that is applied to the next sample frame
+	 */
+	public float getGain() {
+		if (position >= fadeFrames) {
+			return targetGain;
+		}
+
+		return gainTable[(int) (position * TABLE_SIZE / fadeFrames)];
+	}
+}
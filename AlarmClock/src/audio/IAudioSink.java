@@ -0,0 +1,72 @@
+package audio;
+
+import java.io.IOException;
+
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.LineUnavailableException;
+
+/**
+ * An interface describing the destination the {@link AudioMixer} writes its
+ * 16 bit PCM samples to
+ *
+ * @author Raven
+ *
+ */
+public interface IAudioSink {
+
+	/**
+	 * Opens this sink for the given format. If it is open with the same format
+	 * already it will be reused.
+	 *
+	 * @param format
+	 *            The format of the samples that are going to be written
+	 * @param bufferTime
+	 *            The amount of seconds the sink should be able to buffer or a
+	 *            negative value to use the default size
+	 * @throws LineUnavailableException
+	 *             If the audio device can't be opened
+	 * @throws IOException
+	 *             If the sink can't be opened for any other reason
+	 */
+	public void open(AudioFormat format, double bufferTime) throws LineUnavailableException, IOException;
+
+	/**
+	 * Starts the playback of the written samples
+	 */
+	public void start();
+
+	/**
+	 * Writes the given samples to this sink. This method blocks as long as the
+	 * buffer of the sink is full.
+	 *
+	 * @param samples
+	 *            The interleaved samples to write
+	 * @param offset
+	 *            The offset of the first sample to write
+	 * @param length
+	 *            The amount of samples to write
+	 * @throws IOException
+	 *             If the samples can't be written
+	 */
+	public void write(short[] samples, int offset, int length) throws IOException;
+
+	/**
+	 * Discards all samples that have been written but not yet been played
+	 */
+	public void flush();
+
+	/**
+	 * Waits until all written samples have been played
+	 */
+	public void drain();
+
+	/**
+	 * Checks whether this sink is currently open
+	 */
+	public boolean isOpen();
+
+	/**
+	 * Closes this sink
+	 */
+	public void close();
+}
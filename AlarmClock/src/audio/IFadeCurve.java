@@ -0,0 +1,20 @@
+package audio;
+
+/**
+ * An interface describing the curve along which a fade changes the gain
+ *
+ * @author Raven
+ *
+ */
+public interface IFadeCurve {
+
+	/**
+	 * Gets the gain at the given point of the fade
+	 *
+	 * @param progress
+	 *            The progress of the fade (from 0 to 1)
+	 * @return The gain at that point (from 0 to 1). The curve should start at 0
+	 *         and end at 1.
+	 */
+	public double getGain(double progress);
+}
@@ -0,0 +1,35 @@
+package audio;
+
+import java.io.File;
+import java.io.IOException;
+
+import javazoom.jl.decoder.JavaLayerException;
+
+/**
+ * An interface describing an object that provides the tracks for a playback
+ *
+ * @author Raven
+ *
+ */
+public interface ITrackSource {
+
+	/**
+	 * Opens the track that should be played next
+	 *
+	 * @return The opened track or <code>null</code> if there are no more tracks
+	 *         to play
+	 * @throws IOException
+	 *             If the track can't be read
+	 * @throws JavaLayerException
+	 *             If the track can't be decoded
+	 */
+	public PreparedTrack nextTrack() throws IOException, JavaLayerException;
+
+	/**
+	 * Gets called when the user skipped the rest of a track
+	 *
+	 * @param file
+	 *            The file of the skipped track
+	 */
+	public void trackSkipped(File file);
+}
@@ -0,0 +1,153 @@
+package audio;
+
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.AudioSystem;
+import javax.sound.sampled.LineUnavailableException;
+import javax.sound.sampled.SourceDataLine;
+
+/**
+ * An audio sink writing 16 bit PCM samples to a {@link SourceDataLine}. The
+ * line is kept open between tracks as long as the audio format doesn't change.
+ *
+ * @author Raven
+ *
+ */
+public class LineAudioSink implements IAudioSink {
+
+	/**
+	 * The line the samples are written to
+	 */
+	protected SourceDataLine line;
+	/**
+	 * The format the line has been opened with
+	 */
+	protected AudioFormat format;
+	/**
+	 * The buffer used to convert the samples into bytes
+	 */
+	protected byte[] byteBuffer;
+
+
+	public LineAudioSink() {
+		byteBuffer = new byte[4096];
+	}
+
+	/**
+	 * Opens the output line for the given format. If the line is open with the
+	 * same format already it will be reused.
+	 *
+	 * @param format
+	 *            The format of the samples that are going to be written
+	 * @param bufferTime
+	 *            The amount of seconds the line should be able to buffer or a
+	 *            negative value to use the default size
+	 * @throws LineUnavailableException
+	 *             If the line can't be opened
+	 */
+	@Override
+	public synchronized void open(AudioFormat format, double bufferTime) throws LineUnavailableException {
+		if (line != null && line.isOpen() && format.matches(this.format)) {
+			return;
+		}
+
+		close();
+
+		line = AudioSystem.getSourceDataLine(format);
+		if (bufferTime < 0) {
+			line.open(format);
+		} else {
+			line.open(format, (int) (bufferTime * format.getSampleRate()) * format.getFrameSize());
+		}
+
+		this.format = format;
+	}
+
+	/**
+	 * Starts the playback of the written samples
+	 */
+	@Override
+	public synchronized void start() {
+		if (line != null && !line.isRunning()) {
+			line.start();
+		}
+	}
+
+	/**
+	 * Writes the given samples to the output line. This method blocks until all
+	 * samples have been passed to the line.
+	 *
+	 * @param samples
+	 *            The interleaved samples to write
+	 * @param offset
+	 *            The offset of the first sample to write
+	 * @param length
+	 *            The amount of samples to write
+	 */
+	@Override
+	public void write(short[] samples, int offset, int length) {
+		SourceDataLine line = this.line;
+
+		if (line == null) {
+			throw new IllegalStateException("The output has not been opened!");
+		}
+
+		if (byteBuffer.length < length * 2) {
+			byteBuffer = new byte[length * 2];
+		}
+
+		for (int i = 0; i < length; i++) {
+			short sample = samples[offset + i];
+
+			// little endian
+			byteBuffer[i * 2] = (byte) sample;
+			byteBuffer[i * 2 + 1] = (byte) (sample >>> 8);
+		}
+
+		line.write(byteBuffer, 0, length * 2);
+	}
+
+	/**
+	 * Discards all samples that have been written but not yet been played
+	 */
+	@Override
+	public synchronized void flush() {
+		if (line != null) {
+			line.flush();
+		}
+	}
+
+	/**
+	 * Waits until all written samples have been played
+	 */
+	@Override
+	public void drain() {
+		SourceDataLine line = this.line;
+
+		if (line != null) {
+			line.drain();
+		}
+	}
+
+	/**
+	 * Checks whether the output line is currently open
+	 */
+	@Override
+	public boolean isOpen() {
+		return line != null && line.isOpen();
+	}
+
+	/**
+	 * Closes the output line
+	 */
+	@Override
+	public synchronized void close() {
+		if (line != null) {
+			line.stop();
+			line.flush();
+			line.close();
+			line = null;
+		}
+
+		format = null;
+	}
+}
@@ -0,0 +1,238 @@
+package audio;
+
+import java.util.Arrays;
+
+import javax.sound.sampled.AudioFormat;
+
+/**
+ * Measures the integrated loudness of 16 bit PCM samples as described in ITU-R
+ * BS.1770 / EBU R128: the samples are K-weighted, their mean square is taken
+ * over overlapping blocks of 400 ms and the blocks are gated absolutely at -70
+ * LUFS and relatively at 10 LU below the ungated loudness.
+ *
+ * @author Raven
+ *
+ */
+public class LoudnessMeter {
+
+	/**
+	 * The loudness (in LUFS) below which blocks are ignored entirely
+	 */
+	protected static final double ABSOLUTE_GATE = -70;
+	/**
+	 * The loudness (in LU) below the ungated loudness at which blocks are
+	 * ignored
+	 */
+	protected static final double RELATIVE_GATE = -10;
+	/**
+	 * The amount of sub-blocks (of 100 ms) a gating block consists of
+	 */
+	protected static final int SUB_BLOCKS = 4;
+
+	/**
+	 * The amount of channels of the samples
+	 */
+	protected int channels;
+	/**
+	 * The coefficients of the two filters (shelving and high-pass) forming the
+	 * K-weighting: b0, b1, b2, a1, a2 for each
+	 */
+	protected double[] coefficients;
+	/**
+	 * The filter states per channel (two values per filter)
+	 */
+	protected double[] state;
+	/**
+	 * The amount of sample frames in a sub-block
+	 */
+	protected int subBlockFrames;
+	/**
+	 * The amount of sample frames in the current sub-block
+	 */
+	protected int frames;
+	/**
+	 * The sum of the squared weighted samples of the current sub-block
+	 */
+	protected double sum;
+	/**
+	 * The mean squares of the last sub-blocks
+	 */
+	protected double[] subBlocks;
+	/**
+	 * The amount of sub-blocks that have been completed
+	 */
+	protected long subBlockCount;
+	/**
+	 * The mean squares of the completed gating blocks
+	 */
+	protected double[] blocks;
+	/**
+	 * The amount of valid entries in {@link #blocks}
+	 */
+	protected int blockCount;
+	/**
+	 * The highest absolute sample value processed so far
+	 */
+	protected int peak;
+
+
+	/**
+	 * Creates a new meter
+	 *
+	 * @param format
+	 *            The format of the samples that are going to be measured
+	 */
+	public LoudnessMeter(AudioFormat format) {
+		channels = format.getChannels();
+
+		double sampleRate = format.getSampleRate();
+		coefficients = new double[10];
+
+		// high shelf modeling the acoustic effect of the head
+		double K = Math.tan(Math.PI * 1681.974450955533 / sampleRate);
+		double Q = 0.7071752369554196;
+		double Vh = Math.pow(10, 3.999843853973347 / 20);
+		double Vb = Math.pow(Vh, 0.4996667741545416);
+		double a0 = 1 + K / Q + K * K;
+
+		coefficients[0] = (Vh + Vb * K / Q + K * K) / a0;
+		coefficients[1] = 2 * (K * K - Vh) / a0;
+		coefficients[2] = (Vh - Vb * K / Q + K * K) / a0;
+		coefficients[3] = 2 * (K * K - 1) / a0;
+		coefficients[4] = (1 - K / Q + K * K) / a0;
+
+		// RLB high-pass
+		K = Math.tan(Math.PI * 38.13547087602444 / sampleRate);
+		Q = 0.5003270373238773;
+		a0 = 1 + K / Q + K * K;
+
+		coefficients[5] = 1;
+		coefficients[6] = -2;
+		coefficients[7] = 1;
+		coefficients[8] = 2 * (K * K - 1) / a0;
+		coefficients[9] = (1 - K / Q + K * K) / a0;
+
+		state = new double[channels * 4];
+		subBlockFrames = Math.max(1, (int) (sampleRate / 10));
+		subBlocks = new double[SUB_BLOCKS];
+		blocks = new double[1024];
+	}
+
+	/**
+	 * Adds the given samples to the measurement
+	 *
+	 * @param samples
+	 *            The interleaved samples
+	 * @param offset
+	 *            The offset of the first sample
+	 * @param length
+	 *            The amount of samples
+	 */
+	public void process(short[] samples, int offset, int length) {
+		double[] c = coefficients;
+		int end = offset + length - (length % channels);
+
+		for (int index = offset; index < end; index += channels) {
+			for (int channel = 0; channel < channels; channel++) {
+				int s = channel * 4;
+
+				// both filters in transposed direct form II
+				double x = samples[index + channel];
+				peak = Math.max(peak, Math.abs((int) samples[index + channel]));
+				double y = c[0] * x + state[s];
+				state[s] = c[1] * x - c[3] * y + state[s + 1];
+				state[s + 1] = c[2] * x - c[4] * y;
+
+				double z = c[5] * y + state[s + 2];
+				state[s + 2] = c[6] * y - c[8] * z + state[s + 3];
+				state[s + 3] = c[7] * y - c[9] * z;
+
+				sum += z * z;
+			}
+
+			if (++frames == subBlockFrames) {
+				completeSubBlock();
+			}
+		}
+	}
+
+	/**
+	 * Completes the current sub-block and the gating block ending with it
+	 */
+	protected void completeSubBlock() {
+		// normalize to full scale
+		subBlocks[(int) (subBlockCount % SUB_BLOCKS)] = sum / frames / (32768.0 * 32768.0);
+		subBlockCount++;
+		sum = 0;
+		frames = 0;
+
+		if (subBlockCount < SUB_BLOCKS) {
+			return;
+		}
+
+		double block = 0;
+		for (double subBlock : subBlocks) {
+			block += subBlock;
+		}
+
+		if (blockCount == blocks.length) {
+			blocks = Arrays.copyOf(blocks, blockCount * 2);
+		}
+
+		blocks[blockCount++] = block / SUB_BLOCKS;
+	}
+
+	/**
+	 * Gets the integrated loudness of the samples processed so far
+	 *
+	 * @return The loudness in LUFS or {@link Double#NEGATIVE_INFINITY} if
+	 *         there hasn't been any audible block
+	 */
+	public double getIntegratedLoudness() {
+		double absoluteThreshold = toEnergy(ABSOLUTE_GATE);
+		double relativeThreshold = toEnergy(toLoudness(getMean(absoluteThreshold)) + RELATIVE_GATE);
+
+		return toLoudness(getMean(Math.max(absoluteThreshold, relativeThreshold)));
+	}
+
+	/**
+	 * Gets the highest absolute sample value processed so far relative to full
+	 * scale
+	 *
+	 * @return The peak between 0 and 1
+	 */
+	public double getSamplePeak() {
+		return Math.min(1.0, peak / 32768.0);
+	}
+
+	/**
+	 * Gets the mean of all blocks above the given threshold
+	 */
+	protected double getMean(double threshold) {
+		double sum = 0;
+		int count = 0;
+
+		for (int i = 0; i < blockCount; i++) {
+			if (blocks[i] > threshold) {
+				sum += blocks[i];
+				count++;
+			}
+		}
+
+		return (count == 0) ? 0 : sum / count;
+	}
+
+	/**
+	 * Converts the given mean square into LUFS
+	 */
+	protected static double toLoudness(double energy) {
+		return -0.691 + 10 * Math.log10(energy);
+	}
+
+	/**
+	 * Converts the given loudness in LUFS into a mean square
+	 */
+	protected static double toEnergy(double loudness) {
+		return Math.pow(10, (loudness + 0.691) / 10);
+	}
+}
@@ -0,0 +1,72 @@
+package audio;
+
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * An input stream reading directly out of a (memory mapped) byte buffer so
+ * that no intermediate buffers or file reads are needed
+ *
+ * @author Raven
+ *
+ */
+public class MappedInputStream extends InputStream {
+
+	/**
+	 * The buffer the bytes are read from
+	 */
+	protected ByteBuffer buffer;
+
+
+	/**
+	 * Creates a new stream reading the given buffer from the given position on
+	 *
+	 * @param buffer
+	 *            The buffer to read from. Its position and limit are not
+	 *            modified.
+	 * @param position
+	 *            The position to start reading at
+	 */
+	public MappedInputStream(ByteBuffer buffer, int position) {
+		this.buffer = buffer.duplicate();
+		this.buffer.position(position);
+	}
+
+	@Override
+	public int read() {
+		if (!buffer.hasRemaining()) {
+			return -1;
+		}
+
+		return buffer.get() & 0xFF;
+	}
+
+	@Override
+	public int read(byte[] b, int off, int len) {
+		if (len == 0) {
+			return 0;
+		}
+
+		if (!buffer.hasRemaining()) {
+			return -1;
+		}
+
+		len = Math.min(len, buffer.remaining());
+		buffer.get(b, off, len);
+
+		return len;
+	}
+
+	@Override
+	public long skip(long n) {
+		int skipped = (int) Math.max(0, Math.min(n, buffer.remaining()));
+		buffer.position(buffer.position() + skipped);
+
+		return skipped;
+	}
+
+	@Override
+	public int available() {
+		return buffer.remaining();
+	}
+}
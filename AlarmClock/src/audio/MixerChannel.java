@@ -0,0 +1,275 @@
+package audio;
+
+import javax.sound.sampled.AudioFormat;
+
+/**
+ * An input of the {@link AudioMixer}. It reads the samples of a playback out
+ * of its buffer, applies the fade and converts them to the format of the
+ * mixer.
+ *
+ * @author Raven
+ *
+ */
+public class MixerChannel {
+
+	/**
+	 * The name of this channel (used for logging)
+	 */
+	protected String name;
+	/**
+	 * The buffer the samples are read from
+	 */
+	protected PcmRingBuffer buffer;
+	/**
+	 * The gain stage fading in the samples
+	 */
+	protected GainStage gain;
+	/**
+	 * The priority of this channel. Channels with a lower priority are ducked
+	 * while a channel with a higher priority is playing.
+	 */
+	protected int priority;
+	/**
+	 * The volume of this channel (1 being the original volume)
+	 */
+	protected volatile float volume;
+	/**
+	 * The gain applied because of ducking
+	 */
+	protected float duckGain;
+	/**
+	 * The samples that have been read out of the buffer but haven't been mixed
+	 * completely yet (interleaved)
+	 */
+	protected short[] source;
+	/**
+	 * The amount of sample frames in {@link #source}
+	 */
+	protected int sourceFrames;
+	/**
+	 * The (fractional) position of the next frame to mix in {@link #source}
+	 */
+	protected double sourcePosition;
+	/**
+	 * The amount of channels of the current track
+	 */
+	protected int sourceChannels;
+	/**
+	 * The amount of source frames per mixed frame
+	 */
+	protected double step;
+	/**
+	 * The time the playback is supposed to start at in terms of
+	 * {@link System#nanoTime()}
+	 */
+	protected long deadlineNanos;
+	/**
+	 * Indicates whether samples of this channel have been mixed yet
+	 */
+	protected volatile boolean started;
+	/**
+	 * Indicates whether this channel has finished playing
+	 */
+	protected volatile boolean finished;
+
+
+	/**
+	 * Creates a new channel
+	 *
+	 * @param name
+	 *            The name of the channel (used for logging)
+	 * @param buffer
+	 *            The buffer to read the samples from
+	 * @param gain
+	 *            The gain stage to apply to the samples
+	 * @param priority
+	 *            The priority of the channel
+	 * @param deadlineNanos
+	 *            The time the playback is supposed to start at in terms of
+	 *            {@link System#nanoTime()}
+	 */
+	public MixerChannel(String name, PcmRingBuffer buffer, GainStage gain, int priority, long deadlineNanos) {
+		this.name = name;
+		this.buffer = buffer;
+		this.gain = gain;
+		this.priority = priority;
+		this.deadlineNanos = deadlineNanos;
+
+		volume = 1f;
+		duckGain = 1f;
+		source = new short[8192];
+		sourceChannels = 1;
+		step = 1;
+	}
+
+	/**
+	 * Adds the samples of this channel to the given mix
+	 *
+	 * @param mix
+	 *            The mix to add the samples to (interleaved)
+	 * @param frames
+	 *            The amount of sample frames to mix
+	 * @param format
+	 *            The format of the mix
+	 * @param maxPriority
+	 *            The highest priority of all playing channels
+	 * @return The amount of sample frames that have been mixed (less than
+	 *         requested on an underrun) or -1 if the channel has finished
+	 *         playing
+	 * @throws InterruptedException
+	 *             If the thread got interrupted
+	 */
+	protected int render(float[] mix, int frames, AudioFormat format, int maxPriority) throws InterruptedException {
+		if (finished) {
+			return -1;
+		}
+
+		int mixChannels = format.getChannels();
+		float sampleRate = format.getSampleRate();
+
+		// ramp the ducking over the whole block in order to avoid clicks
+		float targetDuckGain = (priority < maxPriority) ? AudioMixer.DUCKING_GAIN : 1f;
+		float duckStep = (targetDuckGain - duckGain) / frames;
+		float volume = this.volume;
+
+		int frame = 0;
+		for (; frame < frames; frame++) {
+			int index = (int) sourcePosition;
+
+			if (index + 1 >= sourceFrames) {
+				if (!refill(sampleRate)) {
+					break;
+				}
+
+				index = (int) sourcePosition;
+			}
+
+			float fraction = (float) (sourcePosition - index);
+			float frameGain = volume * (duckGain + duckStep * frame);
+
+			for (int channel = 0; channel < mixChannels; channel++) {
+				int sourceChannel = Math.min(channel, sourceChannels - 1);
+				float first = source[index * sourceChannels + sourceChannel];
+				float second = source[(index + 1) * sourceChannels + sourceChannel];
+
+				mix[frame * mixChannels + channel] += (first + (second - first) * fraction) * frameGain;
+			}
+
+			sourcePosition += step;
+		}
+
+		duckGain = targetDuckGain;
+
+		if (frame > 0) {
+			started = true;
+		}
+
+		if (frame < frames && finished) {
+			return (frame > 0) ? frame : -1;
+		}
+
+		return frame;
+	}
+
+	/**
+	 * Moves the frames that haven't been mixed yet to the front of
+	 * {@link #source} and reads new samples from the buffer
+	 *
+	 * @param sampleRate
+	 *            The sample rate of the mix
+	 * @return Whether there are enough frames to continue mixing
+	 * @throws InterruptedException
+	 *             If the thread got interrupted
+	 */
+	protected boolean refill(float sampleRate) throws InterruptedException {
+		int index = Math.min((int) sourcePosition, sourceFrames);
+		int remaining = sourceFrames - index;
+
+		System.arraycopy(source, index * sourceChannels, source, 0, remaining * sourceChannels);
+		sourceFrames = remaining;
+		sourcePosition -= index;
+
+		// two frames are needed for the interpolation
+		while (sourceFrames < (int) sourcePosition + 2) {
+			AudioFormat format = buffer.pollTrackStart();
+
+			if (format != null) {
+				// a new track starts -> don't interpolate with the old one
+				sourceChannels = format.getChannels();
+				step = format.getSampleRate() / sampleRate;
+				sourceFrames = 0;
+				sourcePosition = 0;
+
+				gain.setFormat(format);
+				gain.setTrackGain(buffer.getTrackGain());
+			}
+
+			int offset = sourceFrames * sourceChannels;
+			int length = buffer.read(source, offset, (source.length / sourceChannels) * sourceChannels - offset, 0);
+
+			if (length < 0) {
+				finished = true;
+				return false;
+			}
+
+			if (length == 0) {
+				// underrun
+				return false;
+			}
+
+			gain.process(source, offset, length);
+			sourceFrames += length / sourceChannels;
+		}
+
+		return true;
+	}
+
+	/**
+	 * Gets called by the mixer after a block containing samples of this channel
+	 * has been written to the output
+	 */
+	protected void blockWritten() {
+		if (started && deadlineNanos != 0) {
+			StartLatencyLog.record(name, System.nanoTime() - deadlineNanos);
+			deadlineNanos = 0;
+		}
+	}
+
+	/**
+	 * Sets the volume of this channel
+	 *
+	 * @param volume
+	 *            The new volume (1 being the original volume)
+	 */
+	public void setVolume(float volume) {
+		this.volume = volume;
+	}
+
+	/**
+	 * Gets the priority of this channel
+	 */
+	public int getPriority() {
+		return priority;
+	}
+
+	/**
+	 * Checks whether samples of this channel have been mixed yet
+	 */
+	public boolean isStarted() {
+		return started;
+	}
+
+	/**
+	 * Checks whether this channel has finished playing
+	 */
+	public boolean isFinished() {
+		return finished;
+	}
+
+	/**
+	 * Marks this channel as finished
+	 */
+	protected void finish() {
+		finished = true;
+	}
+}
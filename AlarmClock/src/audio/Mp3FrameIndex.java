@@ -0,0 +1,294 @@
+package audio;
+
+import java.io.File;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * The byte offsets of all frames of an MP3 file. It is built by only parsing
+ * the frame headers and allows to find the frame at any point of time without
+ * decoding the preceding frames.
+ *
+ * @author Raven
+ *
+ */
+public class Mp3FrameIndex {
+
+	/**
+	 * The maximum amount of indices that are kept in the cache
+	 */
+	public static int MAX_CACHED_INDICES = 32;
+
+	/**
+	 * The bitrates in kbit/s indexed by [MPEG 1 ? 0 : 1][layer - 1][index]
+	 */
+	protected static final int[][][] BITRATES = {
+			{ { 0, 32, 64, 96, 128, 160, 192, 224, 256, 288, 320, 352, 384, 416, 448 },
+					{ 0, 32, 48, 56, 64, 80, 96, 112, 128, 160, 192, 224, 256, 320, 384 },
+					{ 0, 32, 40, 48, 56, 64, 80, 96, 112, 128, 160, 192, 224, 256, 320 } },
+			{ { 0, 32, 48, 56, 64, 80, 96, 112, 128, 144, 160, 176, 192, 224, 256 },
+					{ 0, 8, 16, 24, 32, 40, 48, 56, 64, 80, 96, 112, 128, 144, 160 },
+					{ 0, 8, 16, 24, 32, 40, 48, 56, 64, 80, 96, 112, 128, 144, 160 } } };
+	/**
+	 * The sample rates of MPEG 1 (MPEG 2 uses the half, MPEG 2.5 the quarter)
+	 */
+	protected static final int[] SAMPLE_RATES = { 44100, 48000, 32000 };
+	/**
+	 * The bits of a header that have to be the same in all frames of a file
+	 * (sync, version, layer and sample rate)
+	 */
+	protected static final int CONSTANT_HEADER_MASK = 0xFFFE0C00;
+
+	/**
+	 * The cached indices (least recently used first)
+	 */
+	protected static final Map<File, Mp3FrameIndex> CACHE = new LinkedHashMap<File, Mp3FrameIndex>(16, 0.75f, true) {
+
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<File, Mp3FrameIndex> eldest) {
+			return size() > MAX_CACHED_INDICES;
+		}
+	};
+
+	/**
+	 * The byte offsets of the frames
+	 */
+	protected int[] offsets;
+	/**
+	 * The sample rate of the file
+	 */
+	protected int sampleRate;
+	/**
+	 * The amount of samples per channel in every frame
+	 */
+	protected int samplesPerFrame;
+	/**
+	 * The size of the file the index has been built for
+	 */
+	protected long fileLength;
+	/**
+	 * The modification time of the file the index has been built for
+	 */
+	protected long lastModified;
+
+
+	protected Mp3FrameIndex(int[] offsets, int sampleRate, int samplesPerFrame) {
+		this.offsets = offsets;
+		this.sampleRate = sampleRate;
+		this.samplesPerFrame = samplesPerFrame;
+	}
+
+	/**
+	 * Gets the index of the given file. It is only built if there is no cached
+	 * index or the file has changed since it has been built.
+	 *
+	 * @param file
+	 *            The file to get the index of
+	 * @param data
+	 *            The content of the file
+	 * @return The index
+	 */
+	public static Mp3FrameIndex get(File file, ByteBuffer data) {
+		File key = file.getAbsoluteFile();
+		long fileLength = file.length();
+		long lastModified = file.lastModified();
+
+		synchronized (CACHE) {
+			Mp3FrameIndex index = CACHE.get(key);
+
+			if (index != null && index.fileLength == fileLength && index.lastModified == lastModified) {
+				return index;
+			}
+		}
+
+		Mp3FrameIndex index = build(data);
+		index.fileLength = fileLength;
+		index.lastModified = lastModified;
+
+		synchronized (CACHE) {
+			CACHE.put(key, index);
+		}
+
+		return index;
+	}
+
+	/**
+	 * Builds the index of the given MP3 data
+	 *
+	 * @param data
+	 *            The data to index. Its position is not modified.
+	 * @return The index
+	 */
+	public static Mp3FrameIndex build(ByteBuffer data) {
+		int length = data.limit();
+		int position = getAudioStart(data);
+
+		int[] offsets = new int[1024];
+		int frames = 0;
+		int firstHeader = 0;
+
+		while (position + 4 <= length) {
+			int header = data.getInt(position);
+			int frameLength = getFrameLength(header);
+
+			boolean valid = frameLength > 0 && position + frameLength <= length
+					&& (frames == 0 || (header & CONSTANT_HEADER_MASK) == (firstHeader & CONSTANT_HEADER_MASK));
+
+			if (valid && frames == 0 && position + frameLength + 4 <= length) {
+				// make sure that the first frame is no false sync by checking
+				// that it is followed by another frame
+				int next = data.getInt(position + frameLength);
+				valid = getFrameLength(next) > 0
+						&& (next & CONSTANT_HEADER_MASK) == (header & CONSTANT_HEADER_MASK);
+			}
+
+			if (!valid) {
+				// search the next sync
+				position++;
+				continue;
+			}
+
+			if (frames == 0) {
+				firstHeader = header;
+			}
+
+			if (frames == offsets.length) {
+				offsets = Arrays.copyOf(offsets, frames * 2);
+			}
+
+			offsets[frames++] = position;
+			position += frameLength;
+		}
+
+		if (frames == 0) {
+			return new Mp3FrameIndex(new int[0], 44100, 1152);
+		}
+
+		return new Mp3FrameIndex(Arrays.copyOf(offsets, frames), getSampleRate(firstHeader),
+				getSamplesPerFrame(firstHeader));
+	}
+
+	/**
+	 * Gets the offset of the first byte after the ID3v2 tag of the given data
+	 */
+	protected static int getAudioStart(ByteBuffer data) {
+		if (data.limit() < 10 || data.get(0) != 'I' || data.get(1) != 'D' || data.get(2) != '3') {
+			return 0;
+		}
+
+		// the size is stored as a sync-safe integer
+		int size = ((data.get(6) & 0x7F) << 21) | ((data.get(7) & 0x7F) << 14) | ((data.get(8) & 0x7F) << 7)
+				| (data.get(9) & 0x7F);
+		boolean footer = (data.get(5) & 0x10) != 0;
+
+		return Math.min(data.limit(), 10 + size + (footer ? 10 : 0));
+	}
+
+	/**
+	 * Gets the length of the frame with the given header
+	 *
+	 * @return The length in bytes or 0 if the header isn't valid
+	 */
+	protected static int getFrameLength(int header) {
+		if ((header & 0xFFE00000) != 0xFFE00000) {
+			return 0;
+		}
+
+		int version = (header >>> 19) & 3;
+		int layer = 4 - ((header >>> 17) & 3);
+		int bitrateIndex = (header >>> 12) & 15;
+		int sampleRateIndex = (header >>> 10) & 3;
+		int padding = (header >>> 9) & 1;
+
+		// reserved or free format
+		if (version == 1 || layer == 4 || bitrateIndex == 0 || bitrateIndex == 15 || sampleRateIndex == 3) {
+			return 0;
+		}
+
+		int bitrate = BITRATES[(version == 3) ? 0 : 1][layer - 1][bitrateIndex] * 1000;
+		int sampleRate = getSampleRate(header);
+
+		switch (layer) {
+		case 1:
+			return (12 * bitrate / sampleRate + padding) * 4;
+		case 2:
+			return 144 * bitrate / sampleRate + padding;
+		default:
+			return ((version == 3) ? 144 : 72) * bitrate / sampleRate + padding;
+		}
+	}
+
+	/**
+	 * Gets the sample rate of the frame with the given (valid) header
+	 */
+	protected static int getSampleRate(int header) {
+		int version = (header >>> 19) & 3;
+		int sampleRate = SAMPLE_RATES[(header >>> 10) & 3];
+
+		switch (version) {
+		case 3:
+			return sampleRate;
+		case 2:
+			return sampleRate / 2;
+		default:
+			return sampleRate / 4;
+		}
+	}
+
+	/**
+	 * Gets the amount of samples per channel of the frame with the given
+	 * (valid) header
+	 */
+	protected static int getSamplesPerFrame(int header) {
+		int version = (header >>> 19) & 3;
+		int layer = 4 - ((header >>> 17) & 3);
+
+		switch (layer) {
+		case 1:
+			return 384;
+		case 2:
+			return 1152;
+		default:
+			return (version == 3) ? 1152 : 576;
+		}
+	}
+
+	/**
+	 * Gets the frame that is played at the given time
+	 *
+	 * @param seconds
+	 *            The time in seconds since the beginning of the track
+	 * @return The index of the frame or {@link #getFrameCount()} if the time
+	 *         lies behind the end of the track
+	 */
+	public int getFrame(double seconds) {
+		long frame = (long) (Math.max(0, seconds) * sampleRate / samplesPerFrame);
+
+		return (int) Math.min(frame, offsets.length);
+	}
+
+	/**
+	 * Gets the byte offset of the given frame
+	 */
+	public int getOffset(int frame) {
+		return offsets[frame];
+	}
+
+	/**
+	 * Gets the amount of frames in the file
+	 */
+	public int getFrameCount() {
+		return offsets.length;
+	}
+
+	/**
+	 * Gets the duration of the track in seconds
+	 */
+	public double getDuration() {
+		return offsets.length * (double) samplesPerFrame / sampleRate;
+	}
+}
@@ -0,0 +1,286 @@
+package audio;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.sound.sampled.AudioFormat;
+
+/**
+ * An audio sink that discards the samples but records a timestamp and the
+ * level of every written buffer. In real time mode it simulates a sound card
+ * by consuming the samples at the sample rate so that start latencies,
+ * underruns and fade curves can be measured without any audio device.
+ *
+ * @author Raven
+ *
+ */
+public class NullAudioSink implements IAudioSink {
+
+	/**
+	 * The maximal amount of buffers that are recorded
+	 */
+	public static int MAX_STAMPS = 100000;
+
+	/**
+	 * The record of a written buffer
+	 *
+	 * @author Raven
+	 *
+	 */
+	public static class BufferStamp {
+		/**
+		 * The time the buffer has been written at in terms of
+		 * {@link System#nanoTime()}
+		 */
+		public final long writeNanos;
+		/**
+		 * The time the first sample of the buffer is (virtually) played at in
+		 * terms of {@link System#nanoTime()}. In non real time mode this is
+		 * the write time.
+		 */
+		public final long playNanos;
+		/**
+		 * The position of the first sample frame of the buffer in the stream
+		 */
+		public final long position;
+		/**
+		 * The amount of sample frames in the buffer
+		 */
+		public final int frames;
+		/**
+		 * The peak level of the buffer (1 being full scale)
+		 */
+		public final float peak;
+
+
+		protected BufferStamp(long writeNanos, long playNanos, long position, int frames, float peak) {
+			this.writeNanos = writeNanos;
+			this.playNanos = playNanos;
+			this.position = position;
+			this.frames = frames;
+			this.peak = peak;
+		}
+	}
+
+	/**
+	 * Whether the samples are consumed at the sample rate
+	 */
+	protected boolean realTime;
+	/**
+	 * The format of the samples
+	 */
+	protected AudioFormat format;
+	/**
+	 * The amount of sample frames the simulated device can buffer
+	 */
+	protected long bufferFrames;
+	/**
+	 * The amount of sample frames that have been written
+	 */
+	protected long writtenFrames;
+	/**
+	 * Indicates whether the simulated device is playing
+	 */
+	protected boolean running;
+	/**
+	 * A sample frame whose play time is known (see {@link #anchorNanos})
+	 */
+	protected long anchorFrame;
+	/**
+	 * The time {@link #anchorFrame} is played at
+	 */
+	protected long anchorNanos;
+	/**
+	 * The amount of times the simulated device ran out of samples
+	 */
+	protected int underruns;
+	/**
+	 * The recorded buffers
+	 */
+	protected List<BufferStamp> stamps;
+
+
+	/**
+	 * Creates a new sink
+	 *
+	 * @param realTime
+	 *            Whether the samples should be consumed at the sample rate. If
+	 *            this is <code>false</code> writes never block.
+	 */
+	public NullAudioSink(boolean realTime) {
+		this.realTime = realTime;
+
+		stamps = new ArrayList<BufferStamp>();
+	}
+
+	@Override
+	public synchronized void open(AudioFormat format, double bufferTime) {
+		if (this.format != null && format.matches(this.format)) {
+			return;
+		}
+
+		this.format = format;
+		bufferFrames = (long) (((bufferTime < 0) ? 0.5 : bufferTime) * format.getSampleRate());
+		writtenFrames = 0;
+		anchorFrame = 0;
+		anchorNanos = System.nanoTime();
+		running = false;
+	}
+
+	@Override
+	public synchronized void start() {
+		if (running) {
+			return;
+		}
+
+		// continue at the frame the device has stopped at
+		running = true;
+		anchorNanos = System.nanoTime();
+	}
+
+	@Override
+	public void write(short[] samples, int offset, int length) {
+		long now = System.nanoTime();
+		int channels;
+
+		synchronized (this) {
+			if (format == null) {
+				throw new IllegalStateException("The sink has not been opened!");
+			}
+
+			channels = format.getChannels();
+
+			if (running && realTime && writtenFrames > 0 && getPlayedFrames(now) >= writtenFrames) {
+				// the device has been playing silence since the last sample
+				underruns++;
+			}
+
+			if (running && (!realTime || getPlayedFrames(now) >= writtenFrames)) {
+				// the new samples are played right away
+				anchorFrame = writtenFrames;
+				anchorNanos = now;
+			}
+
+			int peak = 0;
+			for (int i = offset; i < offset + length; i++) {
+				peak = Math.max(peak, Math.abs(samples[i]));
+			}
+
+			if (stamps.size() < MAX_STAMPS) {
+				stamps.add(new BufferStamp(now, getPlayNanos(writtenFrames), writtenFrames, length / channels,
+						peak / 32768f));
+			}
+
+			writtenFrames += length / channels;
+		}
+
+		if (!realTime) {
+			return;
+		}
+
+		try {
+			while (true) {
+				long wait;
+
+				synchronized (this) {
+					long queued = writtenFrames - getPlayedFrames(System.nanoTime());
+
+					if (!running || queued <= bufferFrames) {
+						// a stopped device would block forever
+						return;
+					}
+
+					wait = (long) ((queued - bufferFrames) * 1000 / format.getSampleRate());
+				}
+
+				Thread.sleep(Math.max(1, wait));
+			}
+		} catch (InterruptedException e) {
+			e.printStackTrace();
+		}
+	}
+
+	/**
+	 * Gets the amount of sample frames that have been played at the given time
+	 */
+	protected long getPlayedFrames(long nanos) {
+		if (!running) {
+			return anchorFrame;
+		}
+
+		if (!realTime) {
+			return writtenFrames;
+		}
+
+		long played = anchorFrame + (long) ((nanos - anchorNanos) * (double) format.getSampleRate() / 1000000000L);
+
+		return Math.min(played, writtenFrames);
+	}
+
+	/**
+	 * Gets the time the given sample frame is played at
+	 */
+	protected long getPlayNanos(long frame) {
+		if (!realTime) {
+			return anchorNanos;
+		}
+
+		return anchorNanos + (long) ((frame - anchorFrame) * 1000000000L / format.getSampleRate());
+	}
+
+	@Override
+	public synchronized void flush() {
+		writtenFrames = getPlayedFrames(System.nanoTime());
+	}
+
+	@Override
+	public void drain() {
+		try {
+			while (true) {
+				synchronized (this) {
+					if (!running || getPlayedFrames(System.nanoTime()) >= writtenFrames) {
+						return;
+					}
+				}
+
+				Thread.sleep(1);
+			}
+		} catch (InterruptedException e) {
+			e.printStackTrace();
+		}
+	}
+
+	@Override
+	public synchronized boolean isOpen() {
+		return format != null;
+	}
+
+	@Override
+	public synchronized void close() {
+		anchorFrame = getPlayedFrames(System.nanoTime());
+		format = null;
+		running = false;
+	}
+
+	/**
+	 * Gets the amount of times the simulated device ran out of samples
+	 */
+	public synchronized int getUnderruns() {
+		return underruns;
+	}
+
+	/**
+	 * Gets the recorded buffers (oldest first)
+	 */
+	public synchronized List<BufferStamp> getStamps() {
+		return new ArrayList<BufferStamp>(stamps);
+	}
+
+	/**
+	 * Clears the recorded buffers and the underrun counter
+	 */
+	public synchronized void reset() {
+		stamps.clear();
+		underruns = 0;
+	}
+}
@@ -0,0 +1,308 @@
+package audio;
+
+import java.io.File;
+import java.util.ArrayDeque;
+
+import javax.sound.sampled.AudioFormat;
+
+/**
+ * A bounded ring buffer for 16 bit PCM samples that connects a decoding
+ * thread with a playback thread. The writer marks the beginning of every track
+ * so that the reader can react on format changes and so that the rest of the
+ * current track can be skipped without touching the tracks that have been
+ * buffered after it.
+ *
+ * @author Raven
+ *
+ */
+public class PcmRingBuffer {
+
+	/**
+	 * Marks the position in the buffer at which a track starts
+	 *
+	 * @author Raven
+	 *
+	 */
+	protected static class TrackMarker {
+		/**
+		 * The (absolute) write position the track starts at
+		 */
+		protected long position;
+		/**
+		 * The format of the track
+		 */
+		protected AudioFormat format;
+		/**
+		 * The file the track has been decoded from
+		 */
+		protected File file;
+		/**
+		 * The gain that should be applied to the track
+		 */
+		protected float gain;
+
+
+		protected TrackMarker(long position, AudioFormat format, File file, float gain) {
+			this.position = position;
+			this.format = format;
+			this.file = file;
+			this.gain = gain;
+		}
+	}
+
+
+	/**
+	 * The storage of this buffer
+	 */
+	protected short[] buffer;
+	/**
+	 * The amount of samples that have been written to this buffer in total
+	 */
+	protected long writePosition;
+	/**
+	 * The amount of samples that have been read from this buffer in total
+	 */
+	protected long readPosition;
+	/**
+	 * The starts of the tracks that haven't been reached by the reader yet
+	 */
+	protected ArrayDeque<TrackMarker> markers;
+	/**
+	 * The file of the track that is currently read
+	 */
+	protected File currentFile;
+	/**
+	 * The gain of the track that is currently read
+	 */
+	protected float currentGain;
+	/**
+	 * Indicates that the remaining samples of the track that is currently
+	 * written should be dropped
+	 */
+	protected boolean discardCurrentTrack;
+	/**
+	 * Indicates that this buffer has been closed
+	 */
+	protected boolean closed;
+
+
+	/**
+	 * Creates a new buffer
+	 *
+	 * @param capacity
+	 *            The amount of samples this buffer can hold
+	 */
+	public PcmRingBuffer(int capacity) {
+		if (capacity <= 0) {
+			throw new IllegalArgumentException("The capacity has to be positive!");
+		}
+
+		buffer = new short[capacity];
+		markers = new ArrayDeque<TrackMarker>();
+	}
+
+	/**
+	 * Marks the beginning of a new track. All samples written afterwards belong
+	 * to this track.
+	 *
+	 * @param format
+	 *            The format of the new track
+	 * @param file
+	 *            The file the track is decoded from
+	 * @param gain
+	 *            The gain that should be applied to the track
+	 */
+	public synchronized void startTrack(AudioFormat format, File file, float gain) {
+		markers.add(new TrackMarker(writePosition, format, file, gain));
+		discardCurrentTrack = false;
+	}
+
+	/**
+	 * Writes the given samples into this buffer. This method blocks as long as
+	 * the buffer is full.
+	 *
+	 * @param samples
+	 *            The interleaved samples to write
+	 * @param offset
+	 *            The offset of the first sample to write
+	 * @param length
+	 *            The amount of samples to write
+	 * @return Whether all samples have been written. If this is
+	 *         <code>false</code> the current track has been skipped or the
+	 *         buffer has been closed and the writer should stop writing the
+	 *         current track.
+	 * @throws InterruptedException
+	 *             If the thread got interrupted while waiting for free space
+	 */
+	public synchronized boolean write(short[] samples, int offset, int length) throws InterruptedException {
+		while (length > 0) {
+			if (closed || discardCurrentTrack) {
+				return false;
+			}
+
+			int free = buffer.length - (int) (writePosition - readPosition);
+
+			if (free == 0) {
+				wait();
+				continue;
+			}
+
+			int index = (int) (writePosition % buffer.length);
+			int amount = Math.min(Math.min(length, free), buffer.length - index);
+
+			System.arraycopy(samples, offset, buffer, index, amount);
+
+			writePosition += amount;
+			offset += amount;
+			length -= amount;
+
+			notifyAll();
+		}
+
+		return !closed && !discardCurrentTrack;
+	}
+
+	/**
+	 * Gets the format of the track that starts at the current read position and
+	 * removes the respective mark. The reader has to call this method before
+	 * every {@link #read(short[], int, int, long)}.
+	 *
+	 * @return The format of the new track or <code>null</code> if no track
+	 *         starts at the current read position
+	 */
+	public synchronized AudioFormat pollTrackStart() {
+		AudioFormat format = null;
+
+		while (!markers.isEmpty() && markers.peek().position <= readPosition) {
+			TrackMarker marker = markers.poll();
+
+			format = marker.format;
+			currentFile = marker.file;
+			currentGain = marker.gain;
+		}
+
+		return format;
+	}
+
+	/**
+	 * Gets the gain that should be applied to the track that is currently read
+	 */
+	public synchronized float getTrackGain() {
+		return currentGain;
+	}
+
+	/**
+	 * Reads samples out of this buffer. A single read never spans two tracks.
+	 *
+	 * @param target
+	 *            The array to read the samples into
+	 * @param offset
+	 *            The offset at which the samples should be stored
+	 * @param length
+	 *            The maximal amount of samples to read
+	 * @param timeout
+	 *            The maximal amount of milliseconds to wait for samples. If
+	 *            this is 0 the method returns right away.
+	 * @return The amount of read samples (0 if the timeout has elapsed) or -1
+	 *         if the buffer has been closed and all samples have been read
+	 * @throws InterruptedException
+	 *             If the thread got interrupted while waiting for samples
+	 */
+	public synchronized int read(short[] target, int offset, int length, long timeout) throws InterruptedException {
+		if (writePosition == readPosition) {
+			if (closed) {
+				return -1;
+			}
+
+			if (timeout > 0) {
+				wait(timeout);
+			}
+
+			if (writePosition == readPosition) {
+				return closed ? -1 : 0;
+			}
+		}
+
+		long available = writePosition - readPosition;
+
+		for (TrackMarker marker : markers) {
+			if (marker.position > readPosition) {
+				// don't read into the next track
+				available = Math.min(available, marker.position - readPosition);
+				break;
+			}
+		}
+
+		int index = (int) (readPosition % buffer.length);
+		int amount = (int) Math.min(Math.min(length, available), buffer.length - index);
+
+		System.arraycopy(buffer, index, target, offset, amount);
+
+		readPosition += amount;
+
+		notifyAll();
+
+		return amount;
+	}
+
+	/**
+	 * Skips the rest of the track that is currently read. If the following track
+	 * has been buffered already the reader will continue with it right away.
+	 * Otherwise the writer will be told to drop the current track.
+	 *
+	 * @return The file of the skipped track or <code>null</code> if the reader
+	 *         hasn't reached any track yet
+	 */
+	public synchronized File skipTrack() {
+		TrackMarker nextTrack = null;
+
+		for (TrackMarker marker : markers) {
+			if (marker.position > readPosition) {
+				nextTrack = marker;
+				break;
+			}
+		}
+
+		if (nextTrack != null) {
+			readPosition = nextTrack.position;
+		} else {
+			readPosition = writePosition;
+			discardCurrentTrack = true;
+		}
+
+		notifyAll();
+
+		return currentFile;
+	}
+
+	/**
+	 * Gets the amount of samples that are currently buffered
+	 */
+	public synchronized int getAvailable() {
+		return (int) (writePosition - readPosition);
+	}
+
+	/**
+	 * Gets the amount of samples this buffer can hold
+	 */
+	public int getCapacity() {
+		return buffer.length;
+	}
+
+	/**
+	 * Closes this buffer. Further writes will be rejected but the samples that
+	 * are still buffered can be read.
+	 */
+	public synchronized void close() {
+		closed = true;
+
+		notifyAll();
+	}
+
+	/**
+	 * Checks whether this buffer has been closed
+	 */
+	public synchronized boolean isClosed() {
+		return closed;
+	}
+}
@@ -0,0 +1,331 @@
+package audio;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+import javax.sound.sampled.LineUnavailableException;
+
+import javazoom.jl.decoder.JavaLayerException;
+
+/**
+ * A single playback of the tracks of a {@link ITrackSource}. Every session owns
+ * its decoder and its fade so that overlapping sessions don't affect each
+ * other. The sessions are played as channels of the {@link AudioMixer} and
+ * their work is done on a shared thread pool.<br>
+ * If a fallback tone has been set, the session switches to it as soon as the
+ * music fails or doesn't start within {@link #START_LATENCY_BUDGET}.
+ *
+ * @author Raven
+ *
+ */
+public class PlaybackSession {
+
+	/**
+	 * The amount of seconds the music may start after the deadline before the
+	 * session falls back to the tone
+	 */
+	public static double START_LATENCY_BUDGET = 0.5;
+	/**
+	 * The interval (in milliseconds) in which the start of the music is
+	 * checked
+	 */
+	protected static final long START_CHECK_INTERVAL = 2;
+	/**
+	 * The interval (in milliseconds) in which the playing music is checked
+	 */
+	protected static final long PLAYBACK_CHECK_INTERVAL = 100;
+	/**
+	 * The highest sample rate of the decoded tracks (MPEG audio goes up to
+	 * 48 kHz). The buffer is sized for it.
+	 */
+	protected static final int MAX_SAMPLE_RATE = 48000;
+	/**
+	 * The highest amount of channels of the decoded tracks
+	 */
+	protected static final int MAX_CHANNELS = 2;
+
+	/**
+	 * The thread pool all sessions run on
+	 */
+	protected static final ExecutorService EXECUTOR = Executors.newCachedThreadPool(new ThreadFactory() {
+
+		@Override
+		public Thread newThread(Runnable r) {
+			Thread thread = new Thread(r, "PlaybackSession");
+			// don't keep the program alive because of a playing alarm
+			thread.setDaemon(true);
+
+			return thread;
+		}
+	});
+
+	/**
+	 * The name of this session
+	 */
+	protected String name;
+	/**
+	 * The source of the tracks
+	 */
+	protected ITrackSource source;
+	/**
+	 * The gain stage fading in the music
+	 */
+	protected GainStage gain;
+	/**
+	 * The buffer between the decoder and the output
+	 */
+	protected PcmRingBuffer buffer;
+	/**
+	 * The priority of this session in the mixer
+	 */
+	protected int priority;
+	/**
+	 * The volume of this session (1 being the original volume)
+	 */
+	protected volatile float volume;
+	/**
+	 * The channel this session is played on once it has been started
+	 */
+	protected volatile MixerChannel channel;
+	/**
+	 * The tone to fall back to or <code>null</code> if there is no fallback
+	 */
+	protected EToneType fallbackTone;
+	/**
+	 * The gain stage fading in the fallback tone
+	 */
+	protected GainStage fallbackGain;
+	/**
+	 * The track that has been opened in advance
+	 */
+	protected volatile PreparedTrack firstTrack;
+	/**
+	 * The time the playback is supposed to start at in terms of
+	 * {@link System#nanoTime()}
+	 */
+	protected volatile long deadlineNanos;
+	/**
+	 * Indicates whether the session has been prepared
+	 */
+	protected volatile boolean prepared;
+	/**
+	 * Indicates that the session has been stopped
+	 */
+	protected volatile boolean stopped;
+
+
+	/**
+	 * Creates a new session
+	 *
+	 * @param name
+	 *            The name of the session (used for logging)
+	 * @param source
+	 *            The source of the tracks to play
+	 * @param gain
+	 *            The gain stage to apply to the samples
+	 * @param priority
+	 *            The priority of the session. Sessions with a lower priority are
+	 *            ducked while a session with a higher priority is playing.
+	 * @param bufferTime
+	 *            The amount of seconds that should be decoded ahead of the
+	 *            playback
+	 */
+	public PlaybackSession(String name, ITrackSource source, GainStage gain, int priority, double bufferTime) {
+		this.name = name;
+		this.source = source;
+		this.gain = gain;
+		this.priority = priority;
+
+		volume = 1f;
+		buffer = new PcmRingBuffer((int) (bufferTime * MAX_SAMPLE_RATE) * MAX_CHANNELS);
+	}
+
+	/**
+	 * Sets the tone this session falls back to if the music can't be played
+	 *
+	 * @param tone
+	 *            The type of the tone or <code>null</code> to disable the
+	 *            fallback
+	 * @param gain
+	 *            The gain stage to apply to the tone
+	 */
+	public void setFallbackTone(EToneType tone, GainStage gain) {
+		fallbackTone = tone;
+		fallbackGain = gain;
+	}
+
+	/**
+	 * Prepares this session so that it can start right at the given deadline.
+	 * This opens the first track and the output line of the mixer.
+	 *
+	 * @param deadline
+	 *            The time (as given by {@link System#currentTimeMillis()}) the
+	 *            playback is going to be started at
+	 */
+	public void prepare(long deadline) {
+		deadlineNanos = System.nanoTime() + (deadline - System.currentTimeMillis()) * 1000000;
+		prepared = true;
+
+		try {
+			firstTrack = source.nextTrack();
+
+			AudioMixer.getMixer().open();
+		} catch (IOException | JavaLayerException | LineUnavailableException | RuntimeException e) {
+			// the decoder will try again once the session is started
+			e.printStackTrace();
+		}
+	}
+
+	/**
+	 * Starts the playback. If the session hasn't been prepared, the start
+	 * latency is measured from now on.
+	 */
+	public void start() {
+		if (!prepared) {
+			deadlineNanos = System.nanoTime();
+		}
+
+		PreparedTrack track = firstTrack;
+		firstTrack = null;
+
+		EXECUTOR.execute(new TrackDecoder(source, buffer, track));
+
+		MixerChannel channel = new MixerChannel(name, buffer, gain, priority, deadlineNanos);
+		channel.setVolume(volume);
+		this.channel = channel;
+
+		if (stopped) {
+			// stopped while starting
+			channel.finish();
+			return;
+		}
+
+		AudioMixer.getMixer().addChannel(channel);
+
+		if (fallbackTone != null) {
+			EXECUTOR.execute(new Runnable() {
+
+				@Override
+				public void run() {
+					watch();
+				}
+			});
+		}
+	}
+
+	/**
+	 * Watches the music channel and falls back to the tone if it doesn't start
+	 * in time or if it stops while the session is still running
+	 */
+	protected void watch() {
+		long budgetNanos = deadlineNanos + (long) (START_LATENCY_BUDGET * 1000000000L);
+
+		try {
+			while (!stopped) {
+				MixerChannel channel = this.channel;
+
+				if (channel.isFinished()) {
+					fallBack("the music has stopped");
+					return;
+				}
+
+				if (channel.isStarted()) {
+					Thread.sleep(PLAYBACK_CHECK_INTERVAL);
+				} else if (System.nanoTime() > budgetNanos) {
+					fallBack("the music didn't start in time");
+					return;
+				} else {
+					Thread.sleep(START_CHECK_INTERVAL);
+				}
+			}
+		} catch (InterruptedException e) {
+			e.printStackTrace();
+		}
+	}
+
+	/**
+	 * Replaces the music channel with the fallback tone
+	 *
+	 * @param reason
+	 *            The reason for the fallback (used for logging)
+	 */
+	protected synchronized void fallBack(String reason) {
+		if (stopped) {
+			return;
+		}
+
+		System.err.println("Playback of " + name + " falls back to the tone: " + reason);
+
+		// stops the decoder
+		buffer.close();
+
+		MixerChannel music = channel;
+		ToneChannel tone = new ToneChannel(name, fallbackTone, fallbackGain, priority, deadlineNanos);
+		tone.setVolume(volume);
+		channel = tone;
+
+		AudioMixer.getMixer().removeChannel(music);
+		AudioMixer.getMixer().addChannel(tone);
+	}
+
+	/**
+	 * Skips the rest of the current track. The samples the mixer has written
+	 * to the output line already are still played.
+	 */
+	public void skipTrack() {
+		File skipped = buffer.skipTrack();
+
+		if (skipped != null) {
+			source.trackSkipped(skipped);
+		}
+	}
+
+	/**
+	 * Sets the volume of this session
+	 *
+	 * @param volume
+	 *            The new volume (1 being the original volume)
+	 */
+	public void setVolume(float volume) {
+		this.volume = volume;
+
+		MixerChannel channel = this.channel;
+		if (channel != null) {
+			channel.setVolume(volume);
+		}
+	}
+
+	/**
+	 * Stops this session
+	 */
+	public synchronized void stop() {
+		stopped = true;
+
+		buffer.close();
+
+		MixerChannel channel = this.channel;
+		if (channel != null) {
+			AudioMixer.getMixer().removeChannel(channel);
+		}
+
+		PreparedTrack track = firstTrack;
+		firstTrack = null;
+
+		if (track != null) {
+			// the session hasn't been started
+			track.close();
+		}
+	}
+
+	/**
+	 * Checks whether this session has been stopped
+	 */
+	public boolean isStopped() {
+		MixerChannel channel = this.channel;
+
+		return stopped || (channel != null && channel.isFinished());
+	}
+}
@@ -0,0 +1,340 @@
+package audio;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+import javax.sound.sampled.AudioFormat;
+
+import javazoom.jl.decoder.Bitstream;
+import javazoom.jl.decoder.BitstreamException;
+import javazoom.jl.decoder.Decoder;
+import javazoom.jl.decoder.Header;
+import javazoom.jl.decoder.JavaLayerException;
+import javazoom.jl.decoder.SampleBuffer;
+
+/**
+ * A music track that has been opened for playback. The first seconds of the
+ * track are decoded into memory right away so that the playback can start
+ * without having to wait for any I/O or decoding work.<br>
+ * The file is memory mapped so that the frames are read without any file I/O
+ * and the playback can start at any point of the track without reading the
+ * frames in front of it.
+ *
+ * @author Raven
+ *
+ */
+public class PreparedTrack {
+
+	/**
+	 * The amount of frames that are decoded and discarded in front of the
+	 * frame that is sought to. Layer III frames may refer to the data of the
+	 * frames in front of them.
+	 */
+	protected static final int PRIMING_FRAMES = 2;
+
+	/**
+	 * The file this track is read from
+	 */
+	protected File file;
+	/**
+	 * The content of the file
+	 */
+	protected MappedByteBuffer data;
+	/**
+	 * The frame index of the file (created when it is needed first)
+	 */
+	protected Mp3FrameIndex frameIndex;
+	/**
+	 * The bitstream the frames are read from
+	 */
+	protected Bitstream bitstream;
+	/**
+	 * The decoder used to decode the frames
+	 */
+	protected Decoder decoder;
+	/**
+	 * The format of the decoded PCM data
+	 */
+	protected AudioFormat format;
+	/**
+	 * The samples that have been decoded in advance (interleaved)
+	 */
+	protected short[] head;
+	/**
+	 * The amount of valid samples in {@link #head}
+	 */
+	protected int headLength;
+	/**
+	 * The samples of the frame that has been decoded last (interleaved)
+	 */
+	protected short[] frameSamples;
+	/**
+	 * Indicates whether the end of the track has been reached
+	 */
+	protected boolean endOfTrack;
+	/**
+	 * The gain that should be applied to this track during the playback
+	 */
+	protected float gain;
+
+
+	protected PreparedTrack(File file) throws IOException {
+		this.file = file;
+
+		try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+			// the mapping stays valid after the channel has been closed
+			data = channel.map(MapMode.READ_ONLY, 0, channel.size());
+		}
+
+		bitstream = new Bitstream(new MappedInputStream(data, 0));
+		decoder = new Decoder();
+		head = new short[0];
+		frameSamples = new short[0];
+		gain = 1f;
+	}
+
+	/**
+	 * Opens the given file and decodes its beginning into memory
+	 *
+	 * @param file
+	 *            The music file to open
+	 * @param headTime
+	 *            The amount of seconds that should be decoded in advance
+	 * @return The prepared track
+	 * @throws IOException
+	 *             If the file can't be read
+	 * @throws JavaLayerException
+	 *             If the file can't be decoded
+	 */
+	public static PreparedTrack open(File file, double headTime) throws IOException, JavaLayerException {
+		return open(file, 0, headTime);
+	}
+
+	/**
+	 * Opens the given file at the given position and decodes the following
+	 * seconds into memory
+	 *
+	 * @param file
+	 *            The music file to open
+	 * @param startTime
+	 *            The position (in seconds) the playback should start at
+	 * @param headTime
+	 *            The amount of seconds that should be decoded in advance
+	 * @return The prepared track
+	 * @throws IOException
+	 *             If the file can't be read
+	 * @throws JavaLayerException
+	 *             If the file can't be decoded
+	 */
+	public static PreparedTrack open(File file, double startTime, double headTime)
+			throws IOException, JavaLayerException {
+		PreparedTrack track = new PreparedTrack(file);
+
+		try {
+			if (startTime > 0) {
+				track.seek(startTime);
+			}
+
+			track.decodeHead(headTime);
+		} catch (JavaLayerException | RuntimeException e) {
+			track.close();
+			throw e;
+		}
+
+		return track;
+	}
+
+	/**
+	 * Decodes the given amount of seconds into {@link #head}
+	 *
+	 * @param headTime
+	 *            The amount of seconds to decode
+	 * @throws JavaLayerException
+	 *             If the file can't be decoded
+	 */
+	protected void decodeHead(double headTime) throws JavaLayerException {
+		// decode the first frame in any case in order to determine the format
+		int length = decodeFrame();
+
+		if (length < 0) {
+			throw new JavaLayerException("The file " + file.getAbsolutePath() + " does not contain any audio frames!");
+		}
+
+		int headSize = Math.max(length,
+				(int) (headTime * format.getSampleRate()) * format.getChannels());
+		head = new short[headSize + frameSamples.length];
+
+		while (length >= 0) {
+			if (headLength + length > head.length) {
+				// the frames may differ in size
+				head = Arrays.copyOf(head, headLength + length);
+			}
+
+			System.arraycopy(frameSamples, 0, head, headLength, length);
+			headLength += length;
+
+			if (headLength >= headSize) {
+				break;
+			}
+
+			length = decodeFrame();
+		}
+	}
+
+	/**
+	 * Decodes the next frame of this track into the frame buffer
+	 *
+	 * @return The amount of decoded samples or -1 if the end of the track has
+	 *         been reached
+	 * @throws JavaLayerException
+	 *             If the frame can't be decoded
+	 * @see #getFrameSamples()
+	 */
+	public int decodeFrame() throws JavaLayerException {
+		if (endOfTrack) {
+			return -1;
+		}
+
+		Header header = bitstream.readFrame();
+
+		if (header == null) {
+			endOfTrack = true;
+			return -1;
+		}
+
+		SampleBuffer output = (SampleBuffer) decoder.decodeFrame(header, bitstream);
+		bitstream.closeFrame();
+
+		if (format == null) {
+			format = new AudioFormat(decoder.getOutputFrequency(), 16, decoder.getOutputChannels(), true, false);
+		}
+
+		int length = output.getBufferLength();
+
+		if (frameSamples.length < length) {
+			frameSamples = new short[length];
+		}
+
+		// the decoder reuses its buffer for every frame
+		System.arraycopy(output.getBuffer(), 0, frameSamples, 0, length);
+
+		return length;
+	}
+
+	/**
+	 * Continues decoding at the given position. Only a few frames in front of
+	 * the position are decoded.<br>
+	 * Note that seeking does not affect the samples that have been decoded in
+	 * advance already.
+	 *
+	 * @param seconds
+	 *            The position in seconds since the beginning of the track
+	 * @throws JavaLayerException
+	 *             If the frames can't be decoded
+	 */
+	public void seek(double seconds) throws JavaLayerException {
+		Mp3FrameIndex index = getFrameIndex();
+		int frame = index.getFrame(seconds);
+
+		bitstream.close();
+
+		if (frame >= index.getFrameCount()) {
+			endOfTrack = true;
+			return;
+		}
+
+		int first = Math.max(0, frame - PRIMING_FRAMES);
+
+		bitstream = new Bitstream(new MappedInputStream(data, index.getOffset(first)));
+		decoder = new Decoder();
+		endOfTrack = false;
+
+		// the output of the priming frames is incomplete
+		for (int i = first; i < frame; i++) {
+			decodeFrame();
+		}
+	}
+
+	/**
+	 * Gets the frame index of this track
+	 */
+	public Mp3FrameIndex getFrameIndex() {
+		if (frameIndex == null) {
+			frameIndex = Mp3FrameIndex.get(file, data);
+		}
+
+		return frameIndex;
+	}
+
+	/**
+	 * Gets the samples that have been decoded by the last call to
+	 * {@link #decodeFrame()}
+	 */
+	public short[] getFrameSamples() {
+		return frameSamples;
+	}
+
+	/**
+	 * Gets the samples that have been decoded in advance
+	 */
+	public short[] getHead() {
+		return head;
+	}
+
+	/**
+	 * Gets the amount of valid samples in {@link #getHead()}
+	 */
+	public int getHeadLength() {
+		return headLength;
+	}
+
+	/**
+	 * Gets the format of the decoded PCM data
+	 */
+	public AudioFormat getFormat() {
+		return format;
+	}
+
+	/**
+	 * Sets the gain that should be applied to this track during the playback
+	 * (e.g. to level its loudness)
+	 *
+	 * @param gain
+	 *            The gain (1 being the original volume)
+	 */
+	public void setGain(float gain) {
+		this.gain = gain;
+	}
+
+	/**
+	 * Gets the gain that should be applied to this track during the playback
+	 */
+	public float getGain() {
+		return gain;
+	}
+
+	/**
+	 * Gets the file this track is read from
+	 */
+	public File getFile() {
+		return file;
+	}
+
+	/**
+	 * Closes this track and releases the underlying file
+	 */
+	public void close() {
+		endOfTrack = true;
+
+		try {
+			bitstream.close();
+		} catch (BitstreamException e) {
+			e.printStackTrace();
+		}
+	}
+}
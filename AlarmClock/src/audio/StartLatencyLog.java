@@ -0,0 +1,63 @@
+package audio;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A log keeping track of the latency between the time an alarm was scheduled
+ * for and the time its first sample has been handed to the audio output
+ *
+ * @author Raven
+ *
+ */
+public class StartLatencyLog {
+
+	/**
+	 * The amount of latencies that are kept in the log
+	 */
+	public static int MAX_ENTRIES = 100;
+	/**
+	 * Indicates whether every recorded latency should be logged
+	 */
+	public static boolean LOG_LATENCIES = false;
+
+	/**
+	 * The recorded latencies in milliseconds (oldest first)
+	 */
+	protected static List<Double> latencies = new ArrayList<Double>();
+
+
+	/**
+	 * Records the start latency of an alarm
+	 *
+	 * @param source
+	 *            A description of what has been started
+	 * @param latencyNanos
+	 *            The latency in nanoseconds. Negative values indicate that the
+	 *            playback has started early
+	 */
+	public static void record(String source, long latencyNanos) {
+		double latency = latencyNanos / 1000000.0;
+
+		synchronized (latencies) {
+			if (latencies.size() >= MAX_ENTRIES) {
+				latencies.remove(0);
+			}
+
+			latencies.add(latency);
+		}
+
+		if (LOG_LATENCIES) {
+			System.out.println(String.format("Start latency of %s: %.2f ms", source, latency));
+		}
+	}
+
+	/**
+	 * Gets the recorded latencies in milliseconds (oldest first)
+	 */
+	public static List<Double> getLatencies() {
+		synchronized (latencies) {
+			return new ArrayList<Double>(latencies);
+		}
+	}
+}
@@ -0,0 +1,133 @@
+package audio;
+
+import javax.sound.sampled.AudioFormat;
+
+/**
+ * A mixer channel that synthesizes an alarm tone instead of reading decoded
+ * music. It doesn't need any I/O or decoding and can therefore start right
+ * away. It is used as a fallback if the music can't be played.
+ *
+ * @author Raven
+ *
+ */
+public class ToneChannel extends MixerChannel {
+
+	/**
+	 * The frequency of the beeps and the start frequency of the sweep in Hz
+	 */
+	public static double TONE_FREQUENCY = 880;
+	/**
+	 * The end frequency of the sweep in Hz
+	 */
+	public static double TONE_SWEEP_FREQUENCY = 1760;
+	/**
+	 * The duration of a beep or a sweep in seconds
+	 */
+	public static double TONE_DURATION = 0.2;
+	/**
+	 * The pause between two beeps or sweeps in seconds
+	 */
+	public static double TONE_PAUSE = 0.15;
+	/**
+	 * The amplitude of the tone (1 being full scale)
+	 */
+	public static double TONE_AMPLITUDE = 0.5;
+	/**
+	 * The duration of the ramps at the beginning and the end of every tone
+	 * that avoid clicks (in seconds)
+	 */
+	protected static final double RAMP_TIME = 0.005;
+
+	/**
+	 * The type of the generated tone
+	 */
+	protected EToneType type;
+	/**
+	 * The amount of sample frames that have been generated
+	 */
+	protected long generatedFrames;
+	/**
+	 * The phase of the oscillator
+	 */
+	protected double phase;
+	/**
+	 * The sample rate the tone is generated at
+	 */
+	protected float sampleRate;
+
+
+	/**
+	 * Creates a new tone channel
+	 *
+	 * @param name
+	 *            The name of the channel (used for logging)
+	 * @param type
+	 *            The type of the tone to generate
+	 * @param gain
+	 *            The gain stage to apply to the samples
+	 * @param priority
+	 *            The priority of the channel
+	 * @param deadlineNanos
+	 *            The time the playback is supposed to start at in terms of
+	 *            {@link System#nanoTime()}
+	 */
+	public ToneChannel(String name, EToneType type, GainStage gain, int priority, long deadlineNanos) {
+		super(name, null, gain, priority, deadlineNanos);
+
+		this.type = type;
+	}
+
+	@Override
+	protected boolean refill(float sampleRate) {
+		if (this.sampleRate != sampleRate) {
+			// generate in the format of the mixer so that nothing has to be
+			// converted
+			this.sampleRate = sampleRate;
+			sourceChannels = 1;
+			sourceFrames = 0;
+			sourcePosition = 0;
+			step = 1;
+
+			gain.setFormat(new AudioFormat(sampleRate, 16, 1, true, false));
+		}
+
+		int index = Math.min((int) sourcePosition, sourceFrames);
+		int remaining = sourceFrames - index;
+
+		System.arraycopy(source, index, source, 0, remaining);
+		sourcePosition -= index;
+
+		double period = TONE_DURATION + TONE_PAUSE;
+		double amplitude = TONE_AMPLITUDE * Short.MAX_VALUE;
+
+		for (int i = remaining; i < source.length; i++) {
+			double time = generatedFrames++ / (double) sampleRate;
+			double toneTime = time % period;
+
+			if (toneTime >= TONE_DURATION) {
+				source[i] = 0;
+				continue;
+			}
+
+			double frequency = TONE_FREQUENCY;
+			if (type == EToneType.SWEEP) {
+				// rise exponentially so that the pitch rises evenly
+				frequency *= Math.pow(TONE_SWEEP_FREQUENCY / TONE_FREQUENCY, toneTime / TONE_DURATION);
+			}
+
+			phase += 2 * Math.PI * frequency / sampleRate;
+			if (phase > 2 * Math.PI) {
+				phase -= 2 * Math.PI;
+			}
+
+			double envelope = Math.min(1, Math.min(toneTime, TONE_DURATION - toneTime) / RAMP_TIME);
+
+			source[i] = (short) (Math.sin(phase) * envelope * amplitude);
+		}
+
+		gain.process(source, remaining, source.length - remaining);
+		sourceFrames = source.length;
+
+		return true;
+	}
+}
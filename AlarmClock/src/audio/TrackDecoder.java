@@ -0,0 +1,129 @@
+package audio;
+
+import java.io.IOException;
+
+import javazoom.jl.decoder.JavaLayerException;
+
+/**
+ * The decoding stage of the playback pipeline. It decodes the tracks of a
+ * {@link ITrackSource} into a {@link PcmRingBuffer} and keeps the following
+ * track opened in advance so that it can follow the current one without a gap.
+ * The buffer will be closed once there are no more tracks to decode.
+ *
+ * @author Raven
+ *
+ */
+public class TrackDecoder implements Runnable {
+
+	/**
+	 * The amount of tracks that may fail to open in a row before the decoder
+	 * gives up
+	 */
+	public static int MAX_FAILURES = 10;
+
+	/**
+	 * The source of the tracks
+	 */
+	protected ITrackSource source;
+	/**
+	 * The buffer the samples are written to
+	 */
+	protected PcmRingBuffer buffer;
+	/**
+	 * The track to start with. May be <code>null</code>
+	 */
+	protected PreparedTrack firstTrack;
+
+
+	/**
+	 * Creates a new decoder
+	 *
+	 * @param source
+	 *            The source of the tracks
+	 * @param buffer
+	 *            The buffer to decode into
+	 * @param firstTrack
+	 *            The track to start with or <code>null</code> if the first
+	 *            track should be taken from the source as well
+	 */
+	public TrackDecoder(ITrackSource source, PcmRingBuffer buffer, PreparedTrack firstTrack) {
+		this.source = source;
+		this.buffer = buffer;
+		this.firstTrack = firstTrack;
+	}
+
+	@Override
+	public void run() {
+		PreparedTrack current = firstTrack;
+		PreparedTrack next = null;
+
+		firstTrack = null;
+
+		try {
+			if (current == null) {
+				current = openNextTrack();
+			}
+
+			while (current != null && !buffer.isClosed()) {
+				buffer.startTrack(current.getFormat(), current.getFile(), current.getGain());
+				boolean completed = buffer.write(current.getHead(), 0, current.getHeadLength());
+
+				// open the following track while the current one is being played
+				next = openNextTrack();
+
+				try {
+					int length;
+					while (completed && (length = current.decodeFrame()) >= 0) {
+						completed = buffer.write(current.getFrameSamples(), 0, length);
+					}
+				} catch (JavaLayerException | RuntimeException e) {
+					// continue with the next track
+					e.printStackTrace();
+				}
+
+				current.close();
+				current = next;
+				next = null;
+			}
+		} catch (InterruptedException e) {
+			// stop decoding
+		} finally {
+			if (current != null) {
+				current.close();
+			}
+			if (next != null) {
+				next.close();
+			}
+
+			buffer.close();
+		}
+	}
+
+	/**
+	 * Opens the next track of the source
+	 *
+	 * @return The opened track or <code>null</code> if there are no more tracks
+	 *         or too many tracks have failed to open
+	 */
+	protected PreparedTrack openNextTrack() {
+		int failures = 0;
+
+		while (!buffer.isClosed()) {
+			try {
+				return source.nextTrack();
+			} catch (IOException | JavaLayerException | RuntimeException e) {
+				e.printStackTrace();
+
+				failures++;
+
+				if (failures > MAX_FAILURES) {
+					System.err.println("Giving up on the music as " + failures
+							+ " tracks in a row have failed to open");
+					return null;
+				}
+			}
+		}
+
+		return null;
+	}
+}
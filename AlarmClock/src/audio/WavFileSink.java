@@ -0,0 +1,174 @@
+package audio;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+
+import javax.sound.sampled.AudioFormat;
+
+/**
+ * An audio sink writing the samples into a WAV file instead of playing them.
+ * The samples are written as fast as they are produced.
+ *
+ * @author Raven
+ *
+ */
+public class WavFileSink implements IAudioSink {
+
+	/**
+	 * The size of the WAV header in bytes
+	 */
+	protected static final int HEADER_SIZE = 44;
+
+	/**
+	 * The file the samples are written to
+	 */
+	protected File file;
+	/**
+	 * The opened file
+	 */
+	protected RandomAccessFile out;
+	/**
+	 * The format of the samples
+	 */
+	protected AudioFormat format;
+	/**
+	 * The amount of sample bytes that have been written
+	 */
+	protected long dataSize;
+	/**
+	 * The buffer used to convert the samples into bytes
+	 */
+	protected byte[] byteBuffer;
+
+
+	/**
+	 * Creates a new sink
+	 *
+	 * @param file
+	 *            The file to write to. It will be overwritten.
+	 */
+	public WavFileSink(File file) {
+		this.file = file;
+
+		byteBuffer = new byte[4096];
+	}
+
+	@Override
+	public synchronized void open(AudioFormat format, double bufferTime) throws IOException {
+		if (out != null && format.matches(this.format)) {
+			return;
+		}
+
+		close();
+
+		out = new RandomAccessFile(file, "rw");
+		out.setLength(0);
+		this.format = format;
+		dataSize = 0;
+
+		// the sizes are filled in once the file is closed
+		writeHeader();
+	}
+
+	@Override
+	public void start() {
+		// the samples are written right away
+	}
+
+	@Override
+	public synchronized void write(short[] samples, int offset, int length) throws IOException {
+		if (out == null) {
+			throw new IllegalStateException("The sink has not been opened!");
+		}
+
+		if (byteBuffer.length < length * 2) {
+			byteBuffer = new byte[length * 2];
+		}
+
+		for (int i = 0; i < length; i++) {
+			short sample = samples[offset + i];
+
+			// little endian
+			byteBuffer[i * 2] = (byte) sample;
+			byteBuffer[i * 2 + 1] = (byte) (sample >>> 8);
+		}
+
+		out.write(byteBuffer, 0, length * 2);
+		dataSize += length * 2;
+	}
+
+	/**
+	 * Writes the header at the beginning of the file
+	 */
+	protected void writeHeader() throws IOException {
+		int channels = format.getChannels();
+		int sampleRate = (int) format.getSampleRate();
+
+		out.seek(0);
+		out.writeBytes("RIFF");
+		writeInt((int) (HEADER_SIZE - 8 + dataSize));
+		out.writeBytes("WAVE");
+		out.writeBytes("fmt ");
+		writeInt(16);
+		// PCM
+		writeShort(1);
+		writeShort(channels);
+		writeInt(sampleRate);
+		writeInt(sampleRate * channels * 2);
+		writeShort(channels * 2);
+		writeShort(16);
+		out.writeBytes("data");
+		writeInt((int) dataSize);
+	}
+
+	/**
+	 * Writes the given value in little endian
+	 */
+	protected void writeInt(int value) throws IOException {
+		out.write(value);
+		out.write(value >>> 8);
+		out.write(value >>> 16);
+		out.write(value >>> 24);
+	}
+
+	/**
+	 * Writes the given value in little endian
+	 */
+	protected void writeShort(int value) throws IOException {
+		out.write(value);
+		out.write(value >>> 8);
+	}
+
+	@Override
+	public void flush() {
+		// written samples can't be discarded
+	}
+
+	@Override
+	public void drain() {
+		// there is nothing to play
+	}
+
+	@Override
+	public synchronized boolean isOpen() {
+		return out != null;
+	}
+
+	@Override
+	public synchronized void close() {
+		if (out == null) {
+			return;
+		}
+
+		try {
+			writeHeader();
+			out.close();
+		} catch (IOException e) {
+			e.printStackTrace();
+		}
+
+		out = null;
+		format = null;
+	}
+}
@@ -0,0 +1,93 @@
+package benchmark;
+
+import java.util.Random;
+
+import javax.sound.sampled.AudioFormat;
+
+import audio.EFadeCurve;
+import audio.GainStage;
+import audio.IFadeCurve;
+
+/**
+ * Measures the cost per sample of the {@link GainStage} while it is fading
+ * and after the fade has finished
+ *
+ * @author Raven
+ *
+ */
+public class GainStageBenchmark {
+
+	/**
+	 * The amount of samples per processed chunk (one MP3 frame in stereo)
+	 */
+	protected static final int CHUNK_SIZE = 2304;
+	/**
+	 * The amount of chunks that are processed per measurement
+	 */
+	protected static final int CHUNKS = 20000;
+
+
+	public static void main(String[] args) {
+		AudioFormat format = new AudioFormat(44100, 16, 2, true, false);
+
+		short[] samples = new short[CHUNK_SIZE];
+		Random random = new Random(42);
+		for (int i = 0; i < samples.length; i++) {
+			samples[i] = (short) random.nextInt();
+		}
+
+		IFadeCurve custom = new IFadeCurve() {
+
+			@Override
+			public double getGain(double progress) {
+				return progress * progress;
+			}
+		};
+
+		// warm up
+		for (int i = 0; i < 5; i++) {
+			measure(EFadeCurve.LINEAR, 1000, 1f, format, samples);
+			measure(EFadeCurve.LINEAR, 0, 0.8f, format, samples);
+		}
+
+		// use a fade that lasts longer than the measurement
+		double longFade = CHUNKS * CHUNK_SIZE / format.getChannels() / format.getSampleRate() * 2;
+
+		print("fading (linear)", measure(EFadeCurve.LINEAR, longFade, 1f, format, samples));
+		print("fading (logarithmic)", measure(EFadeCurve.LOGARITHMIC, longFade, 1f, format, samples));
+		print("fading (custom)", measure(custom, longFade, 1f, format, samples));
+		print("after fade (gain 0.8)", measure(EFadeCurve.LINEAR, 0, 0.8f, format, samples));
+		print("after fade (gain 1.0)", measure(EFadeCurve.LINEAR, 0, 1f, format, samples));
+	}
+
+	/**
+	 * Processes {@link #CHUNKS} chunks with a new gain stage
+	 *
+	 * @return The average time per sample in nanoseconds
+	 */
+	protected static double measure(IFadeCurve curve, double fadeTime, float gain, AudioFormat format,
+			short[] source) {
+		GainStage stage = new GainStage(curve, fadeTime, gain);
+		stage.setFormat(format);
+
+		// the values shrink with every pass which doesn't affect the timing
+		short[] chunk = source.clone();
+
+		long start = System.nanoTime();
+
+		for (int i = 0; i < CHUNKS; i++) {
+			stage.process(chunk, 0, chunk.length);
+		}
+
+		long duration = System.nanoTime() - start;
+
+		return duration / (double) (CHUNKS * (long) chunk.length);
+	}
+
+	/**
+	 * Prints the result of a measurement
+	 */
+	protected static void print(String name, double nanosPerSample) {
+		System.out.println(String.format("%-25s %6.3f ns/sample", name, nanosPerSample));
+	}
+}
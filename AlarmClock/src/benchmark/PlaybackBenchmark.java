@@ -0,0 +1,115 @@
+package benchmark;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+
+import audio.AudioMixer;
+import audio.EFadeCurve;
+import audio.EToneType;
+import audio.GainStage;
+import audio.ITrackSource;
+import audio.NullAudioSink;
+import audio.NullAudioSink.BufferStamp;
+import audio.PlaybackSession;
+import audio.PreparedTrack;
+import audio.StartLatencyLog;
+import javazoom.jl.decoder.JavaLayerException;
+
+/**
+ * Plays a prepared session into a real time {@link NullAudioSink} and reports
+ * the start latency, the underruns and the fade curve. It doesn't need a
+ * sound card. The MP3 files to play can be given as arguments. Without any
+ * files the fallback tone is measured.
+ *
+ * @author Raven
+ *
+ */
+public class PlaybackBenchmark {
+
+	/**
+	 * The amount of milliseconds between preparing and starting the session
+	 */
+	protected static final long PREPARATION_TIME = 1000;
+	/**
+	 * The amount of milliseconds the session is played
+	 */
+	protected static final long PLAYBACK_TIME = 5000;
+	/**
+	 * The fade time used for the measurement in seconds
+	 */
+	protected static final double FADE_TIME = 3.0;
+
+
+	public static void main(final String[] args) throws InterruptedException {
+		NullAudioSink sink = new NullAudioSink(true);
+		AudioMixer.getMixer().setSink(sink);
+
+		ITrackSource source = new ITrackSource() {
+
+			int next = 0;
+
+			@Override
+			public PreparedTrack nextTrack() throws IOException, JavaLayerException {
+				if (args.length == 0) {
+					return null;
+				}
+
+				return PreparedTrack.open(new File(args[next++ % args.length]), 3.0);
+			}
+
+			@Override
+			public void trackSkipped(File file) {
+			}
+		};
+
+		PlaybackSession session = new PlaybackSession("benchmark", source,
+				new GainStage(EFadeCurve.LOGARITHMIC, FADE_TIME, 1f), 0, 2.0);
+		session.setFallbackTone(EToneType.BEEPS, new GainStage(EFadeCurve.LOGARITHMIC, FADE_TIME, 1f));
+
+		long deadline = System.currentTimeMillis() + PREPARATION_TIME;
+		session.prepare(deadline);
+
+		Thread.sleep(Math.max(0, deadline - System.currentTimeMillis()));
+		long startNanos = System.nanoTime();
+		session.start();
+
+		Thread.sleep(PLAYBACK_TIME);
+		session.stop();
+
+		List<BufferStamp> stamps = sink.getStamps();
+
+		System.out.println();
+		System.out.println("Start latency (mixer): " + StartLatencyLog.getLatencies() + " ms");
+		if (!stamps.isEmpty()) {
+			System.out.println(String.format("Start latency (first buffer played): %.2f ms",
+					(stamps.get(0).playNanos - startNanos) / 1000000.0));
+		}
+		System.out.println("Buffers: " + stamps.size() + ", underruns: " + sink.getUnderruns());
+
+		// the peak level per quarter second shows the fade curve
+		System.out.println("Fade curve (peak per 250 ms):");
+		float peak = 0;
+		long slot = 0;
+		for (BufferStamp stamp : stamps) {
+			long currentSlot = (stamp.playNanos - startNanos) / 250000000L;
+
+			if (currentSlot != slot) {
+				print(slot, peak);
+				slot = currentSlot;
+				peak = 0;
+			}
+
+			peak = Math.max(peak, stamp.peak);
+		}
+		print(slot, peak);
+	}
+
+	/**
+	 * Prints the peak of the given slot
+	 */
+	protected static void print(long slot, float peak) {
+		System.out.println(String.format("%6.2f s %6.3f %s", slot * 0.25, peak,
+				new String(new char[(int) (peak * 50)]).replace('\0', '#')));
+	}
+}
@@ -0,0 +1,100 @@
+package starter;
+
+import java.util.Timer;
+import java.util.TimerTask;
+import java.util.concurrent.CountDownLatch;
+
+import alarm.AlarmManager;
+import alarm.IAlarm;
+import alarm.IAlarmManagerListener;
+
+/**
+ * Runs the alarm clock without any user interface. Only the scheduler, the
+ * persistence and the audio playback are started, so the alarms can ring on
+ * a machine without a display. This class doesn't reference SWT, hence it can
+ * be started without SWT on the classpath, e.g. with a small heap and the
+ * client compiler for a fast startup:
+ * 
+ * <pre>
+ * java -Xmx32m -XX:TieredStopAtLevel=1 -cp ... starter.DaemonStarter
+ * </pre>
+ * 
+ * @author Raven
+ *
+ */
+public class DaemonStarter {
+	
+	/**
+	 * The amount of milliseconds an alarm rings before it is terminated
+	 * automatically as there is nobody to terminate it otherwise
+	 */
+	public static long ALARM_DURATION = 15 * 60 * 1000;
+	
+	
+	/**
+	 * Logs the alarms and terminates them after {@link #ALARM_DURATION}
+	 */
+	static class AlarmListener implements IAlarmManagerListener {
+		
+		/**
+		 * The timer terminating the invoked alarms
+		 */
+		private Timer timer;
+		
+		public AlarmListener() {
+			timer = new Timer("AlarmTerminator", true);
+		}
+		
+		@Override
+		public void alarmInvoked(IAlarm alarm) {
+			System.out.println("Alarm invoked: " + alarm.getGroup().getName()
+					+ " (" + alarm.getAlarmDate() + ")");
+			
+			timer.schedule(new TimerTask() {
+				
+				@Override
+				public void run() {
+					alarm.terminate();
+				}
+			}, ALARM_DURATION);
+		}
+		
+		@Override
+		public void alarmsChanged() {
+			IAlarm nextAlarm = AlarmManager.getManager().getNextAlarm();
+			
+			if (nextAlarm == null || !nextAlarm.isActive()) {
+				System.out.println("No alarms set");
+			} else {
+				System.out.println("Next alarm: " + nextAlarm.getAlarmDate());
+			}
+		}
+	}
+	
+	
+	public static void main(String[] args) {
+		final CountDownLatch shutdownLatch = new CountDownLatch(1);
+		
+		Runtime.getRuntime().addShutdownHook(new Thread(new Runnable() {
+			
+			@Override
+			public void run() {
+				// shutdown background thread
+				AlarmManager.shutdown();
+				shutdownLatch.countDown();
+			}
+		}));
+		
+		AlarmManager.initialize();
+		AlarmListener alarmListener = new AlarmListener();
+		AlarmManager.getManager().addAlarmManagerListener(alarmListener);
+		
+		alarmListener.alarmsChanged();
+		
+		try {
+			shutdownLatch.await();
+		} catch (InterruptedException e) {
+			e.printStackTrace();
+		}
+	}
+}
@@ -0,0 +1,180 @@
+package starter;
+
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.eclipse.swt.SWT;
+import org.eclipse.swt.widgets.Control;
+import org.eclipse.swt.widgets.Display;
+import org.eclipse.swt.widgets.Event;
+import org.eclipse.swt.widgets.Listener;
+
+import ui.ITickListener;
+import ui.UITicker;
+
+/**
+ * Turns the screen off if there hasn't been any input for a while. The input
+ * filter only records the time of the last input. A periodic check on the
+ * display thread decides when to turn the screen off, so no timers or
+ * processes are created while the screen is being used. While the screen is
+ * off the given control is disabled so that the touch waking the screen up
+ * doesn't trigger anything.
+ *
+ * @author Raven
+ *
+ */
+public class IdleManager implements ITickListener {
+
+	/**
+	 * The amount of milliseconds between two idle checks
+	 */
+	public static long CHECK_INTERVAL = 250;
+	/**
+	 * The command used to turn the screen off
+	 */
+	public static String[] DISPLAY_OFF_COMMAND = new String[] { "xset", "dpms",
+			"force", "off" };
+
+	/**
+	 * The display whose input is observed
+	 */
+	protected Display display;
+	/**
+	 * The control that is disabled while the screen is off
+	 */
+	protected Control control;
+	/**
+	 * The amount of milliseconds without input after which the screen is
+	 * turned off
+	 */
+	protected long idleTimeout;
+	/**
+	 * The time of the last input in terms of
+	 * {@link System#currentTimeMillis()}
+	 */
+	protected AtomicLong lastInput;
+	/**
+	 * The time the screen has been turned off at or -1 if it is on
+	 */
+	protected volatile long displayOffTime;
+	/**
+	 * The filter recording the input
+	 */
+	protected Listener inputFilter;
+
+
+	/**
+	 * Creates a new idle manager
+	 *
+	 * @param display
+	 *            The display whose input should be observed
+	 * @param control
+	 *            The control to disable while the screen is off
+	 * @param idleTimeout
+	 *            The amount of milliseconds without input after which the
+	 *            screen should be turned off
+	 */
+	public IdleManager(Display display, Control control, long idleTimeout) {
+		this.display = display;
+		this.control = control;
+		this.idleTimeout = idleTimeout;
+
+		lastInput = new AtomicLong(System.currentTimeMillis());
+		displayOffTime = -1;
+
+		inputFilter = new Listener() {
+
+			@Override
+			public void handleEvent(Event event) {
+				lastInput.set(System.currentTimeMillis());
+			}
+		};
+	}
+
+	/**
+	 * Starts observing the input. This method has to be called from the
+	 * display thread.
+	 */
+	public void start() {
+		lastInput.set(System.currentTimeMillis());
+
+		display.addFilter(SWT.MouseDown, inputFilter);
+		display.addFilter(SWT.MouseMove, inputFilter);
+
+		UITicker.getTicker(display).subscribe(this, CHECK_INTERVAL);
+	}
+
+	/**
+	 * Stops observing the input. This method has to be called from the
+	 * display thread.
+	 */
+	public void stop() {
+		if (display.isDisposed()) {
+			return;
+		}
+
+		display.removeFilter(SWT.MouseDown, inputFilter);
+		display.removeFilter(SWT.MouseMove, inputFilter);
+
+		UITicker.getTicker(display).unsubscribe(this);
+	}
+
+	@Override
+	public void tick(long time) {
+		long idleTime = time - lastInput.get();
+
+		if (displayOffTime >= 0) {
+			if (lastInput.get() > displayOffTime) {
+				// the input has woken the screen up
+				displayOffTime = -1;
+
+				if (!control.isDisposed()) {
+					control.setEnabled(true);
+				}
+			}
+		} else {
+			if (idleTime >= idleTimeout) {
+				turnDisplayOff(time);
+			}
+		}
+	}
+
+	/**
+	 * Turns the screen off and disables the control
+	 *
+	 * @param time
+	 *            The current time
+	 */
+	protected void turnDisplayOff(long time) {
+		try {
+			new ProcessBuilder(DISPLAY_OFF_COMMAND).start();
+		} catch (IOException e) {
+			e.printStackTrace();
+
+			// try again after another timeout instead of on every check
+			lastInput.set(time);
+			return;
+		}
+
+		displayOffTime = time;
+
+		if (!control.isDisposed()) {
+			control.setEnabled(false);
+		}
+	}
+
+	/**
+	 * Gets the time of the last input in terms of
+	 * {@link System#currentTimeMillis()}
+	 */
+	public long getLastInput() {
+		return lastInput.get();
+	}
+
+	/**
+	 * Checks whether the screen has been turned off
+	 */
+	public boolean isDisplayOff() {
+		return displayOffTime >= 0;
+	}
+}
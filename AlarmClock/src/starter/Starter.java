@@ -1,15 +1,12 @@
 package starter;
 
-import java.io.IOException;
+import java.util.ArrayList;
 import java.util.List;
-import java.util.Timer;
-import java.util.TimerTask;
-import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
 
 import org.eclipse.swt.SWT;
 import org.eclipse.swt.custom.StackLayout;
-import org.eclipse.swt.events.DisposeEvent;
-import org.eclipse.swt.events.DisposeListener;
 import org.eclipse.swt.graphics.Color;
 import org.eclipse.swt.graphics.Cursor;
 import org.eclipse.swt.graphics.Font;
@@ -19,7 +16,6 @@ import org.eclipse.swt.graphics.PaletteData;
 import org.eclipse.swt.graphics.Point;
 import org.eclipse.swt.graphics.RGB;
 import org.eclipse.swt.graphics.Rectangle;
-import org.eclipse.swt.layout.FillLayout;
 import org.eclipse.swt.layout.GridData;
 import org.eclipse.swt.layout.GridLayout;
 import org.eclipse.swt.widgets.Button;
@@ -35,30 +31,30 @@ import alarm.AlarmManager;
 import alarm.IAlarm;
 import alarm.IAlarmManagerListener;
 import alarm.MusicAlarm;
+import alarm.MusicLibrary;
 import ui.AlarmList;
 import ui.AlarmManagerUI;
 import ui.AlarmSetter;
 import ui.AnalogClock;
 import ui.IntegratedClockUI;
-import util.Util;
+import ui.NextAlarmOverlay;
+import ui.PanelPool;
+import ui.ReusablePanel;
+import util.ResourceRegistry;
 
 public class Starter {
 	/**
 	 * The font height that should be used
 	 */
 	public static final int fontHeight = 18;
-	/**
-	 * The timer used to schedule the display-off action
-	 */
-	protected static Timer displayOffTimer = new Timer();
 	/**
 	 * How long the display should stay on if nothing happens
 	 */
 	protected static int displayOffDelay = 8000;
 	/**
-	 * Indicates whether the display has been turned off
+	 * The manager turning the display off if it isn't used
 	 */
-	protected static AtomicBoolean displayTurnedOff = new AtomicBoolean(false);
+	protected static IdleManager idleManager;
 	/**
 	 * The used clock UI
 	 */
@@ -66,12 +62,42 @@ public class Starter {
 	/**
 	 * The used {@linkplain Display}
 	 */
-	protected static Display display;
+	protected static volatile Display display;
+	/**
+	 * The pool of the panels that can be opened from the clock UI
+	 */
+	protected static PanelPool panels;
+	/**
+	 * Indicates whether the timeline of the startup should be logged
+	 */
+	public static boolean LOG_STARTUP_TIMELINE = true;
+	/**
+	 * The timeline of the startup phases
+	 */
+	protected static StartupTimeline timeline;
+	/**
+	 * The task loading the alarm store in the background
+	 */
+	protected static FutureTask<Void> storeTask;
+	/**
+	 * Indicates whether the UI has been set up for the loaded store. Only
+	 * accessed from the display thread.
+	 */
+	protected static boolean storeReady;
+	/**
+	 * The controls that need the alarm store and are disabled until it has
+	 * been loaded
+	 */
+	protected static List<Control> storeControls = new ArrayList<Control>();
 
 
 	static class AlarmListener implements IAlarmManagerListener {
 
 		private int fontSize;
+		/**
+		 * The overlay showing when the next alarm is due
+		 */
+		private NextAlarmOverlay overlay;
 
 		public AlarmListener(int fontSize) {
 			this.fontSize = fontSize;
@@ -84,7 +110,13 @@ public class Starter {
 			}
 			MusicAlarm musicAlarm = (MusicAlarm) alarm;
 
-			Display display = Display.getDefault();
+			Display display = Starter.display;
+
+			if (display == null || display.isDisposed()) {
+				// no GUI (yet) -> abort
+				return;
+			}
+
 			display.asyncExec(new Runnable() {
 
 				@Override
@@ -111,10 +143,12 @@ public class Starter {
 						// assemble font to use
 						FontData[] data = parentShell.getFont().getFontData();
 						data[0].setHeight(fontSize);
-						Font font = new Font(display, data);
+						ResourceRegistry registry = ResourceRegistry.getRegistry(display);
+						Font font = registry.getFont(data);
 
 						// create the shell for the alarm
 						Shell alarmShell = new Shell(parentShell, SWT.NO_TRIM);
+						registry.bind(alarmShell, font);
 						alarmShell.setLocation(parentShell.getLocation());
 						alarmShell.setSize(parentShell.getSize());
 						alarmShell.setCursor(parentShell.getCursor());
@@ -194,109 +228,128 @@ public class Starter {
 		@Override
 		public void alarmsChanged() {
 			// display next alarm time
-			final List<IAlarm> alarms = AlarmManager.getManager().getAlarms();
+			Display display = Starter.display;
 
-			Display display = Display.getDefault();
+			if (display == null || display.isDisposed()) {
+				return;
+			}
 
 			display.asyncExec(new Runnable() {
 
 				@Override
 				public void run() {
-					Shell parentShell = null;
-
-					for (Shell currentShell : display.getShells()) {
-						if (currentShell.getLayout() instanceof StackLayout) {
-							parentShell = currentShell;
-							break;
-						}
-					}
+					showMessage(NextAlarmOverlay.getMessage(AlarmManager.getManager().getNextAlarm()));
+				}
+			});
+		}
 
-					if (parentShell == null) {
-						return;
+		/**
+		 * Shows the given message in the overlay. This method has to be called
+		 * from the display thread.
+		 * 
+		 * @param message
+		 *            The message to show
+		 */
+		public void showMessage(String message) {
+			if (overlay == null || overlay.isDisposed()) {
+				Shell parentShell = null;
+
+				for (Shell currentShell : Display.getCurrent().getShells()) {
+					if (currentShell.getLayout() instanceof StackLayout) {
+						parentShell = currentShell;
+						break;
 					}
+				}
 
-					Shell shell = new Shell(display, SWT.NO_TRIM | SWT.NO_BACKGROUND);
-					shell.setLayout(new FillLayout());
+				if (parentShell == null) {
+					return;
+				}
 
-					FontData[] data = parentShell.getFont().getFontData();
-					data[0].setHeight(fontSize);
-					Font font = new Font(display, data);
+				overlay = new NextAlarmOverlay(parentShell, fontSize);
+			}
 
-					shell.setFont(font);
+			overlay.show(message);
+		}
 
-					Label timeLabel = new Label(shell, SWT.NO_BACKGROUND);
-					timeLabel.setFont(font);
-					Util.magnifyFont(timeLabel, 0.8);
+	}
 
-					String message = "No alarms set";
-					if (alarms.size() > 0 && alarms.get(0).isActive()) {
-						long currentTime = System.currentTimeMillis();
-						long alarmTime = alarms.get(0).getAlarmDate().getTime();
 
-						long diff = alarmTime - currentTime;
+	public static void main(String[] args) {
+		boolean debug = false;
 
-						int minuteFactor = 1000 * 60;
-						int hourFactor = minuteFactor * 60;
+		for (String currentArg : args) {
+			if (currentArg.equals("debug")) {
+				debug = true;
+			}
 
-						long hours = diff / hourFactor;
-						long minutes = (diff - hourFactor * hours) / minuteFactor;
+			if (currentArg.equals("daemon")) {
+				// run without UI (SWT still has to be on the classpath for this
+				// class - use DaemonStarter directly if it isn't)
+				DaemonStarter.main(args);
+				return;
+			}
+		}
 
-						if (hours > 48) {
-							// If the date is more than two days from now, only print out the date itself
-							message = "Next alarm: " + alarms.get(0).getAlarmDate();
-						} else {
-							// print hours until alarm
-							message = "Next alarm in " + hours + " hours and " + minutes + " minutes";
-						}
-					}
-					timeLabel.setText(message);
+		timeline = new StartupTimeline();
 
-					shell.pack();
+		final AlarmListener alarmListener = new AlarmListener(fontHeight);
+		final Thread displayThread = Thread.currentThread();
 
-					Rectangle area = parentShell.getClientArea();
-					Point location = parentShell.getLocation();
+		// load the alarms while the UI is being built
+		storeTask = new FutureTask<Void>(new Runnable() {
 
-					shell.setLocation(area.width / 2 + location.x - shell.getSize().x / 2,
-							location.y + shell.getSize().y);
+			@Override
+			public void run() {
+				timeline.begin("store");
+				AlarmManager.initialize();
+				AlarmManager.getManager().addAlarmManagerListener(alarmListener);
+				timeline.end("store");
+			}
+		}, null) {
 
-					shell.open();
+			@Override
+			protected void done() {
+				// if the display doesn't exist yet, the UI checks the task once
+				// it has been built
+				Display display = Display.findDisplay(displayThread);
 
-					display.timerExec(5000, new Runnable() {
+				if (display != null && !display.isDisposed()) {
+					display.asyncExec(new Runnable() {
 
 						@Override
 						public void run() {
-							shell.close();
-							shell.dispose();
+							storeLoaded(alarmListener);
 						}
 					});
 				}
-			});
-		}
-
-	}
-
+			}
+		};
+		new Thread(storeTask, "StoreLoader").start();
 
-	public static void main(String[] args) {
-		boolean debug = false;
+		Thread libraryThread = new Thread(new Runnable() {
 
-		for (String currentArg : args) {
-			if (currentArg.equals("debug")) {
-				debug = true;
+			@Override
+			public void run() {
+				timeline.begin("music library");
+				MusicLibrary.getLibrary();
+				timeline.end("music library");
 			}
-		}
-
-		AlarmManager.initialize();
-		AlarmListener alarmListener = new AlarmListener(fontHeight);
-		AlarmManager.getManager().addAlarmManagerListener(alarmListener);
+		}, "LibraryLoader");
+		libraryThread.setDaemon(true);
+		libraryThread.start();
 
 		try {
+			timeline.begin("display");
 			display = Display.getDefault();
+			timeline.end("display");
 			
 			if (!display.getThread().equals(Thread.currentThread())) {
 				// something is wrong - there shouldn't have been a SWT Display thread at this point
 				throw new IllegalStateException("Unable to create new Display as one exists already...");
 			}
 
+			timeline.begin("ui");
+
 			final Shell topLevelShell;
 
 			if (debug) {
@@ -305,14 +358,24 @@ public class Starter {
 				topLevelShell = new Shell(display, SWT.NO_TRIM);
 
 				// hide cursor
-				Color white = display.getSystemColor(SWT.COLOR_WHITE);
-				Color black = display.getSystemColor(SWT.COLOR_BLACK);
-				PaletteData palette = new PaletteData(new RGB[] { white.getRGB(), black.getRGB() });
-				ImageData sourceData = new ImageData(16, 16, 1, palette);
-				sourceData.transparentPixel = 0;
-				Cursor cursor = new Cursor(display, sourceData, 0, 0);
+				Cursor cursor = ResourceRegistry.getRegistry(display).getCursor("hidden",
+						new ResourceRegistry.IResourceFactory<Cursor>() {
+
+							@Override
+							public Cursor create(Display display) {
+								Color white = display.getSystemColor(SWT.COLOR_WHITE);
+								Color black = display.getSystemColor(SWT.COLOR_BLACK);
+								PaletteData palette = new PaletteData(
+										new RGB[] { white.getRGB(), black.getRGB() });
+								ImageData sourceData = new ImageData(16, 16, 1, palette);
+								sourceData.transparentPixel = 0;
+
+								return new Cursor(display, sourceData, 0, 0);
+							}
+						});
 
 				topLevelShell.setCursor(cursor);
+				ResourceRegistry.getRegistry(display).bind(topLevelShell, cursor);
 			}
 
 			topLevelShell.setText("AlarmClock");
@@ -321,30 +384,47 @@ public class Starter {
 
 			FontData[] fontData = topLevelShell.getFont().getFontData();
 			fontData[0].setHeight(fontHeight);
-			topLevelShell.setFont(new Font(display, fontData));
+			ResourceRegistry.setFont(topLevelShell, fontData);
 
 
 			ui = new IntegratedClockUI(topLevelShell, SWT.LEFT | SWT.RIGHT);
 
 			layout.topControl = ui;
 
-			ui.createButton("Set Alarm", SWT.LEFT, new Listener() {
+			panels = new PanelPool(ui);
+
+			panels.register("setter", SWT.LEFT, new PanelPool.IPanelFactory() {
 
 				@Override
-				public void handleEvent(Event event) {
-					AlarmSetter setter = new AlarmSetter(ui, SWT.NONE);
-					setter.addDisposeListener(new DisposeListener() {
+				public ReusablePanel create() {
+					return new AlarmSetter(topLevelShell, SWT.NONE);
+				}
+			});
 
-						@Override
-						public void widgetDisposed(DisposeEvent e) {
-							ui.hide(SWT.NONE);
-						}
-					});
-					ui.setPanel(setter, SWT.LEFT);
-					ui.hide(SWT.RIGHT);
+			panels.register("manager", SWT.RIGHT, new PanelPool.IPanelFactory() {
+
+				@Override
+				public ReusablePanel create() {
+					return new AlarmManagerUI(topLevelShell, SWT.NONE);
 				}
 			});
 
+			panels.register("list", SWT.RIGHT, new PanelPool.IPanelFactory() {
+
+				@Override
+				public ReusablePanel create() {
+					return new AlarmList(topLevelShell, SWT.NONE);
+				}
+			});
+
+			storeControls.add(ui.createButton("Set Alarm", SWT.LEFT, new Listener() {
+
+				@Override
+				public void handleEvent(Event event) {
+					panels.open("setter");
+				}
+			}));
+
 			ui.createButton("Mode", SWT.LEFT, new Listener() {
 
 				@Override
@@ -354,42 +434,23 @@ public class Starter {
 				}
 			}).setEnabled(false);
 
-			ui.createButton("Manage alarms", SWT.RIGHT, new Listener() {
+			storeControls.add(ui.createButton("Manage alarms", SWT.RIGHT, new Listener() {
 
 				@Override
 				public void handleEvent(Event event) {
-					AlarmManagerUI manager = new AlarmManagerUI(topLevelShell, SWT.NONE);
-					manager.addDisposeListener(new DisposeListener() {
-
-						@Override
-						public void widgetDisposed(DisposeEvent e) {
-							ui.hide(SWT.NONE);
-						}
-					});
-					ui.setPanel(manager, SWT.RIGHT);
-					ui.hide(SWT.LEFT);
+					panels.open("manager");
 				}
-			});
+			}));
 
-			ui.createButton("List alarms", SWT.RIGHT, new Listener() {
+			storeControls.add(ui.createButton("List alarms", SWT.RIGHT, new Listener() {
 
 				@Override
 				public void handleEvent(Event arg0) {
-					AlarmList list = new AlarmList(topLevelShell, SWT.NONE);
-
-					list.addDisposeListener(new DisposeListener() {
-
-						@Override
-						public void widgetDisposed(DisposeEvent e) {
-							ui.hide(SWT.NONE);
-						}
-					});
-					ui.setPanel(list, SWT.RIGHT);
-					ui.hide(SWT.LEFT);
+					panels.open("list");
 				}
-			});
+			}));
 
-			ui.createButton("Next alarm", SWT.RIGHT, new Listener() {
+			storeControls.add(ui.createButton("Next alarm", SWT.RIGHT, new Listener() {
 
 				@Override
 				public void handleEvent(Event arg0) {
@@ -397,7 +458,7 @@ public class Starter {
 					// alarm to be displayed
 					alarmListener.alarmsChanged();
 				}
-			});
+			}));
 
 			if (!debug) {
 				Rectangle bounds = Display.getCurrent().getBounds();
@@ -409,6 +470,17 @@ public class Starter {
 			}
 
 			topLevelShell.open();
+			timeline.end("ui");
+
+			if (storeTask.isDone()) {
+				storeLoaded(alarmListener);
+			} else {
+				for (Control currentControl : storeControls) {
+					currentControl.setEnabled(false);
+				}
+
+				alarmListener.showMessage("Loading alarms...");
+			}
 
 			while (!topLevelShell.isDisposed()) {
 				if (!display.readAndDispatch()) {
@@ -420,8 +492,9 @@ public class Starter {
 		} catch (Exception e) {
 			e.printStackTrace();
 		} finally {
-			// cancel timer
-			displayOffTimer.cancel();
+			if (idleManager != null) {
+				idleManager.stop();
+			}
 			
 			if (ui != null && ! ui.isDisposed()) {
 				ui.dispose();
@@ -437,77 +510,55 @@ public class Starter {
 	}
 
 	/**
-	 * Sets up all the stuff for shutting down the screen if it is not needed
+	 * Sets up the UI for the loaded alarm store. This method has to be called
+	 * from the display thread; it does nothing if it has been called before.
 	 * 
-	 * @param display
-	 *            The used display
+	 * @param alarmListener
+	 *            The listener showing the next alarm
 	 */
-	protected static void setUpDisplaySaver(Display display) {
-		displayOffTimer.schedule(new TimerTask() {
+	protected static void storeLoaded(AlarmListener alarmListener) {
+		if (storeReady || ui == null || ui.isDisposed()) {
+			return;
+		}
 
-			@Override
-			public void run() {
-				try {
-					new ProcessBuilder(new String[] { "xset", "dpms", "force", "off" }).start();
-					displayTurnedOff.set(true);
-					display.asyncExec(new Runnable() {
-
-						@Override
-						public void run() {
-							ui.setEnabled(false);
-						}
-					});
-				} catch (IOException e) {
-					e.printStackTrace();
-				}
-			}
-		}, displayOffDelay);
+		storeReady = true;
 
+		try {
+			storeTask.get();
+		} catch (InterruptedException | ExecutionException e) {
+			// the program can't work without its alarms
+			e.printStackTrace();
+			ui.getShell().dispose();
+			return;
+		}
 
-		Listener mouseListener = new Listener() {
+		for (Control currentControl : storeControls) {
+			if (!currentControl.isDisposed()) {
+				currentControl.setEnabled(true);
+			}
+		}
 
-			@Override
-			public void handleEvent(Event e) {
-				if (displayTurnedOff.get()) {
-					// don't process the event as the screen has been black till
-					// then
-					displayTurnedOff.set(false);
-				} else {
-					display.asyncExec(new Runnable() {
+		alarmListener.alarmsChanged();
 
-						@Override
-						public void run() {
-							ui.setEnabled(true);
-						}
-					});
-				}
+		// build the panels now so that they open instantly later on
+		timeline.begin("panels");
+		panels.prebuild();
+		timeline.end("panels");
 
-				displayOffTimer.cancel();
-				displayOffTimer = new Timer();
-				displayOffTimer.schedule(new TimerTask() {
-
-					@Override
-					public void run() {
-						try {
-							new ProcessBuilder(new String[] { "xset", "dpms", "force", "off" }).start();
-							displayTurnedOff.set(true);
-							display.asyncExec(new Runnable() {
-
-								@Override
-								public void run() {
-									ui.setEnabled(false);
-								}
-							});
-						} catch (IOException e) {
-							e.printStackTrace();
-						}
-					}
-				}, displayOffDelay);
-			}
-		};
+		if (LOG_STARTUP_TIMELINE) {
+			System.out.println(timeline);
+		}
+	}
 
-		display.addFilter(SWT.MouseDown, mouseListener);
-		display.addFilter(SWT.MouseMove, mouseListener);
+	/**
+	 * Sets up all the stuff for shutting down the screen if it is not needed
+	 * 
+	 * @param display
+	 *            The used display
+	 */
+	protected static void setUpDisplaySaver(Display display) {
+		idleManager = new IdleManager(display, ui, displayOffDelay);
+		idleManager.start();
 	}
 
 }
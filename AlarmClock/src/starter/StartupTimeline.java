@@ -0,0 +1,116 @@
+package starter;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Records when the phases of the program's startup begin and end, so it can
+ * be seen which of them run concurrently and which one delays the startup.
+ * Phases may be recorded from any thread.
+ *
+ * @author Raven
+ *
+ */
+public class StartupTimeline {
+
+	/**
+	 * A phase of the startup
+	 *
+	 * @author Raven
+	 *
+	 */
+	protected static class Phase {
+		/**
+		 * The name of the phase
+		 */
+		protected String name;
+		/**
+		 * The name of the thread the phase runs in
+		 */
+		protected String thread;
+		/**
+		 * The time the phase has begun at in terms of
+		 * {@link System#nanoTime()}
+		 */
+		protected long begin;
+		/**
+		 * The time the phase has ended at or -1 if it is still running
+		 */
+		protected long end;
+	}
+
+	/**
+	 * The time the timeline has been created at in terms of
+	 * {@link System#nanoTime()}
+	 */
+	protected long origin;
+	/**
+	 * The recorded phases in the order they have begun in
+	 */
+	protected List<Phase> phases;
+
+
+	public StartupTimeline() {
+		origin = System.nanoTime();
+		phases = new ArrayList<Phase>();
+	}
+
+	/**
+	 * Records the beginning of the phase with the given name in the current
+	 * thread
+	 *
+	 * @param name
+	 *            The name of the phase
+	 */
+	public synchronized void begin(String name) {
+		Phase phase = new Phase();
+		phase.name = name;
+		phase.thread = Thread.currentThread().getName();
+		phase.begin = System.nanoTime();
+		phase.end = -1;
+
+		phases.add(phase);
+	}
+
+	/**
+	 * Records the end of the phase with the given name. Phases that haven't
+	 * begun are ignored.
+	 *
+	 * @param name
+	 *            The name of the phase
+	 */
+	public synchronized void end(String name) {
+		for (Phase currentPhase : phases) {
+			if (currentPhase.name.equals(name) && currentPhase.end < 0) {
+				currentPhase.end = System.nanoTime();
+				return;
+			}
+		}
+	}
+
+	/**
+	 * Gets the time in milliseconds since the creation of this timeline
+	 */
+	public double getElapsedTime() {
+		return (System.nanoTime() - origin) / 1000000.0;
+	}
+
+	@Override
+	public synchronized String toString() {
+		StringBuilder builder = new StringBuilder("Startup timeline:");
+
+		for (Phase currentPhase : phases) {
+			builder.append(String.format("%n  %8.1f ms - ", (currentPhase.begin - origin) / 1000000.0));
+
+			if (currentPhase.end < 0) {
+				builder.append("    running");
+			} else {
+				builder.append(String.format("%8.1f ms", (currentPhase.end - origin) / 1000000.0));
+			}
+
+			builder.append(String.format("  %-14s [%s]", currentPhase.name, currentPhase.thread));
+		}
+
+		return builder.toString();
+	}
+}
@@ -1,7 +1,8 @@
 package ui;
 
 import java.text.SimpleDateFormat;
-import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Map;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 import org.eclipse.swt.SWT;
@@ -14,18 +15,47 @@ import org.eclipse.swt.widgets.Control;
 import org.eclipse.swt.widgets.Display;
 import org.eclipse.swt.widgets.Event;
 import org.eclipse.swt.widgets.Listener;
+import org.eclipse.swt.widgets.TableColumn;
+import org.eclipse.swt.widgets.TableItem;
 
 import alarm.AlarmManager;
 import alarm.IAlarm;
 import alarm.IAlarmManagerListener;
 
-public class AlarmList extends FontInheritComposite
+public class AlarmList extends ReusablePanel
 		implements IAlarmManagerListener {
 	
 	/**
-	 * The list used to display the alarms
+	 * The label of a row together with the state of the alarm it has been
+	 * created for
+	 * 
+	 * @author Raven
+	 *
+	 */
+	protected static class RowLabel {
+		/**
+		 * The version of the alarm the label has been created for
+		 */
+		protected int version;
+		/**
+		 * The group name of the alarm the label has been created for
+		 */
+		protected String groupName;
+		/**
+		 * The label
+		 */
+		protected String text;
+	}
+	
+	/**
+	 * The virtual table used to display the alarms. Its rows are only filled
+	 * once they become visible.
+	 */
+	protected FontInheritTable alarmList;
+	/**
+	 * The single column of {@link #alarmList}
 	 */
-	protected FontInheritList alarmList;
+	protected TableColumn alarmColumn;
 	/**
 	 * The button that closes the list view
 	 */
@@ -40,9 +70,17 @@ public class AlarmList extends FontInheritComposite
 	protected FontInheritButton changeButton;
 	
 	/**
-	 * Maps the list index to the respective alarm
+	 * The alarms in the order they are listed
 	 */
-	protected HashMap<Integer, IAlarm> alarmMap;
+	protected IAlarm[] alarms;
+	/**
+	 * The cached row labels of the alarms
+	 */
+	protected Map<IAlarm, RowLabel> labelCache;
+	/**
+	 * The formatter used for the alarm dates
+	 */
+	protected SimpleDateFormat formatter;
 	/**
 	 * The currently selected alarm
 	 */
@@ -52,7 +90,9 @@ public class AlarmList extends FontInheritComposite
 	public AlarmList(Composite parent, int style) {
 		super(parent, style);
 		
-		alarmMap = new HashMap<Integer, IAlarm>();
+		alarms = new IAlarm[0];
+		labelCache = new IdentityHashMap<IAlarm, RowLabel>();
+		formatter = new SimpleDateFormat("EEE HH:mm   (dd. MMMM)");
 		
 		initialize();
 	}
@@ -66,14 +106,39 @@ public class AlarmList extends FontInheritComposite
 		mainGrid.marginWidth = 0;
 		super.setLayout(mainGrid);
 		
-		alarmList = new FontInheritList(this, SWT.SINGLE | SWT.RIGHT);
+		alarmList = new FontInheritTable(this,
+				SWT.SINGLE | SWT.VIRTUAL | SWT.FULL_SELECTION);
 		alarmList.setLayoutData(new GridData(SWT.FILL, SWT.FILL, true, true));
 		
+		alarmColumn = new TableColumn(alarmList, SWT.RIGHT);
+		
+		alarmList.addListener(SWT.SetData, new Listener() {
+			
+			@Override
+			public void handleEvent(Event event) {
+				TableItem item = (TableItem) event.item;
+				int index = event.index;
+				
+				if (index >= 0 && index < alarms.length) {
+					item.setText(getLabel(alarms[index]));
+				}
+			}
+		});
+		
+		alarmList.addListener(SWT.Resize, new Listener() {
+			
+			@Override
+			public void handleEvent(Event event) {
+				// the column spans the whole table
+				alarmColumn.setWidth(alarmList.getClientArea().width);
+			}
+		});
+		
 		alarmList.addListener(SWT.Selection, new Listener() {
 			
 			@Override
 			public void handleEvent(Event event) {
-				selectedAlarm = alarmMap.get(alarmList.getSelectionIndex());
+				selectedAlarm = getAlarm(alarmList.getSelectionIndex());
 				
 				activateButton.setEnabled(selectedAlarm != null);
 				changeButton.setEnabled(selectedAlarm != null);
@@ -103,38 +168,39 @@ public class AlarmList extends FontInheritComposite
 	}
 	
 	/**
-	 * Updates the list content with the respective alarms
+	 * Updates the list content with the respective alarms. Only the amount of
+	 * rows is updated right away, their labels are created once they become
+	 * visible.
 	 */
 	protected void updateList() {
 		// store current selection
-		IAlarm selectedAlarm = (alarmList.getSelectionIndex() >= 0)
-				? alarmMap.get(alarmList.getSelectionIndex()) : null;
+		IAlarm selectedAlarm = getAlarm(alarmList.getSelectionIndex());
 		
-		int selectionIndex = -1;
-		
-		SimpleDateFormat formatter = new SimpleDateFormat(
-				"EEE HH:mm   (dd. MMMM)");
+		alarms = AlarmManager.getManager().getAlarmSnapshot();
 		
-		alarmList.removeAll();
+		int selectionIndex = -1;
 		
-		// list alarms
-		for (IAlarm currentAlarm : AlarmManager.getManager().getAlarms()) {
-			alarmList.add(((currentAlarm.getGroup() == null) ? ""
-					: currentAlarm.getGroup().getName() + " - ")
-					+ formatter.format(currentAlarm.getAlarmDate())
-					+ ((currentAlarm.isActive()) ? "" : " -- Inactive"));
-			
-			alarmMap.put(alarmList.getItemCount() - 1, currentAlarm);
-			
-			if (currentAlarm.equals(selectedAlarm)) {
-				selectionIndex = alarmList.getItemCount() - 1;
+		if (selectedAlarm != null) {
+			for (int i = 0; i < alarms.length; i++) {
+				if (alarms[i] == selectedAlarm) {
+					selectionIndex = i;
+					break;
+				}
 			}
 		}
 		
+		if (labelCache.size() > alarms.length * 2) {
+			// forget the labels of alarms that have been removed
+			labelCache.clear();
+		}
+		
+		alarmList.setItemCount(alarms.length);
+		alarmList.clearAll();
+		
 		if (selectionIndex >= 0) {
 			alarmList.select(selectionIndex);
 		} else {
-			if (alarmList.getItemCount() > 0) {
+			if (alarms.length > 0) {
 				alarmList.select(0);
 			}
 		}
@@ -142,6 +208,62 @@ public class AlarmList extends FontInheritComposite
 		alarmList.notifyListeners(SWT.Selection, null);
 	}
 	
+	@Override
+	public void reset() {
+		// start with the first alarm selected
+		alarmList.deselectAll();
+		updateList();
+		
+		if (alarmList.getItemCount() > 0) {
+			alarmList.setTopIndex(0);
+		}
+	}
+	
+	/**
+	 * Gets the alarm listed at the given index
+	 * 
+	 * @param index
+	 *            The index of the row
+	 * @return The respective alarm or <code>null</code> if there is none
+	 */
+	protected IAlarm getAlarm(int index) {
+		if (index < 0 || index >= alarms.length) {
+			return null;
+		}
+		
+		return alarms[index];
+	}
+	
+	/**
+	 * Gets the label of the given alarm. It is only created if the cached one
+	 * is outdated.
+	 * 
+	 * @param alarm
+	 *            The alarm to get the label for
+	 */
+	protected String getLabel(IAlarm alarm) {
+		String groupName = (alarm.getGroup() == null) ? null
+				: alarm.getGroup().getName();
+		RowLabel label = labelCache.get(alarm);
+		
+		if (label != null && label.version == alarm.getVersion()
+				&& ((groupName == null) ? label.groupName == null
+						: groupName.equals(label.groupName))) {
+			return label.text;
+		}
+		
+		label = new RowLabel();
+		label.version = alarm.getVersion();
+		label.groupName = groupName;
+		label.text = ((groupName == null) ? "" : groupName + " - ")
+				+ formatter.format(alarm.getAlarmDate())
+				+ ((alarm.isActive()) ? "" : " -- Inactive");
+		
+		labelCache.put(alarm, label);
+		
+		return label.text;
+	}
+	
 	/**
 	 * Creates and initializes the three bottom buttons
 	 * 
@@ -169,7 +291,7 @@ public class AlarmList extends FontInheritComposite
 			
 			@Override
 			public void handleEvent(Event event) {
-				AlarmList.this.dispose();
+				AlarmList.this.close();
 			}
 		});
 		
@@ -216,7 +338,10 @@ public class AlarmList extends FontInheritComposite
 					@Override
 					public void widgetDisposed(DisposeEvent e) {
 						if (!AlarmList.this.isDisposed()) {
-							ui.setPanel(AlarmList.this, SWT.RIGHT);
+							// a pooled panel isn't disposed -> it mustn't
+							// collect another dispose listener per change
+							ui.setPanel(AlarmList.this, SWT.RIGHT,
+									!isReusable());
 							
 							if (!alarmList.isDisposed()) {
 								updateList();
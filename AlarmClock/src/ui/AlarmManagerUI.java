@@ -1,8 +1,5 @@
 package ui;
 
-import java.util.HashMap;
-import java.util.Map;
-
 import org.eclipse.swt.SWT;
 import org.eclipse.swt.events.DisposeEvent;
 import org.eclipse.swt.events.DisposeListener;
@@ -14,21 +11,26 @@ import org.eclipse.swt.layout.GridLayout;
 import org.eclipse.swt.widgets.Canvas;
 import org.eclipse.swt.widgets.Composite;
 import org.eclipse.swt.widgets.Control;
+import org.eclipse.swt.widgets.Event;
 import org.eclipse.swt.widgets.Layout;
+import org.eclipse.swt.widgets.Listener;
+import org.eclipse.swt.widgets.TableItem;
 import alarm.AlarmGroup;
 import alarm.AlarmManager;
-import util.Util;
+import util.ResourceRegistry;
 
-public class AlarmManagerUI extends FontInheritComposite {
+public class AlarmManagerUI extends ReusablePanel {
 	
 	/**
-	 * A map mapping the list index to the respective alarm group
+	 * The virtual table displaying the alarm groups. Its rows are bound to
+	 * {@link #groups} and are only filled once they become visible.
 	 */
-	protected Map<Integer, AlarmGroup> groupList;
+	protected FontInheritTable list;
 	/**
-	 * The list displaying the alarms
+	 * The groups of the {@link AlarmManager} at the time the list has last
+	 * been updated
 	 */
-	protected FontInheritList list;
+	protected AlarmGroup[] groups;
 	/**
 	 * The button for opening the edit mode
 	 */
@@ -38,7 +40,7 @@ public class AlarmManagerUI extends FontInheritComposite {
 	public AlarmManagerUI(Composite parent, int style) {
 		super(parent, style);
 		
-		groupList = new HashMap<Integer, AlarmGroup>();
+		groups = new AlarmGroup[0];
 		
 		setFont(parent.getFont());
 		
@@ -59,13 +61,24 @@ public class AlarmManagerUI extends FontInheritComposite {
 		title.setText("Manage alarms");
 		title.setLayoutData(new GridData(SWT.FILL, SWT.FILL, true, false));
 		title.setFont(getFont());
-		Util.magnifyFont(title, 1.5);
+		ResourceRegistry.magnifyFont(title, 1.5);
 		
-		list = new FontInheritList(this, SWT.NONE);
+		list = new FontInheritTable(this, SWT.SINGLE | SWT.VIRTUAL);
 		
 		list.setLayoutData(new GridData(SWT.FILL, SWT.FILL, true, true));
 		list.setFont(getFont());
 		
+		list.addListener(SWT.SetData, new Listener() {
+			
+			@Override
+			public void handleEvent(Event event) {
+				TableItem item = (TableItem) event.item;
+				AlarmGroup group = getGroup(event.index);
+				
+				item.setText((group == null) ? "" : group.getName());
+			}
+		});
+		
 		
 		// create composite for edit and cancel button
 		FontInheritComposite buttonComp = new FontInheritComposite(this, SWT.NONE);
@@ -90,7 +103,7 @@ public class AlarmManagerUI extends FontInheritComposite {
 		cancelButton.addSelectionListener(new SelectionAdapter() {
 			@Override
 			public void widgetSelected(SelectionEvent e) {
-				AlarmManagerUI.this.dispose();
+				AlarmManagerUI.this.close();
 			}
 		});
 		
@@ -106,8 +119,11 @@ public class AlarmManagerUI extends FontInheritComposite {
 			
 			@Override
 			public void widgetSelected(SelectionEvent e) {
-				AlarmGroup selectedGroup = groupList
-						.get(list.getSelectionIndex());
+				AlarmGroup selectedGroup = getGroup(list.getSelectionIndex());
+				
+				if (selectedGroup == null) {
+					return;
+				}
 				
 				Control searchHelper = getParent();
 				
@@ -125,7 +141,10 @@ public class AlarmManagerUI extends FontInheritComposite {
 					@Override
 					public void widgetDisposed(DisposeEvent e) {
 						if (!AlarmManagerUI.this.isDisposed()) {
-							ui.setPanel(AlarmManagerUI.this, SWT.RIGHT);
+							// a pooled panel isn't disposed -> it mustn't
+							// collect another dispose listener per edit
+							ui.setPanel(AlarmManagerUI.this, SWT.RIGHT,
+									!isReusable());
 						}
 					}
 				});
@@ -144,19 +163,44 @@ public class AlarmManagerUI extends FontInheritComposite {
 		throw new IllegalAccessError("No support for custom layouts!");
 	}
 	
+	@Override
+	public void reset() {
+		updateList();
+		
+		if (list.getItemCount() > 0) {
+			list.setTopIndex(0);
+		}
+		list.deselectAll();
+	}
+	
 	/**
 	 * Updates the list with the alarms from the alarm manager
 	 */
 	public void updateList() {
 		checkWidget();
 		
-		list.removeAll();
-		for (AlarmGroup currentGroup : AlarmManager.getManager()
-				.getAllAlarmsAsGroups()) {
-			list.add(currentGroup.getName());
-			groupList.put(list.getItemCount() - 1, currentGroup);
-		}
+		groups = AlarmManager.getManager().getAllAlarmsAsGroups()
+				.toArray(new AlarmGroup[0]);
+		
+		// the visible rows are requested again
+		list.setItemCount(groups.length);
+		list.clearAll();
 		
 		editButton.setEnabled(list.getItemCount() > 0);
 	}
+	
+	/**
+	 * Gets the group shown in the given row
+	 * 
+	 * @param index
+	 *            The index of the row
+	 * @return The respective group or <code>null</code> if there is none
+	 */
+	protected AlarmGroup getGroup(int index) {
+		if (index < 0 || index >= groups.length) {
+			return null;
+		}
+		
+		return groups[index];
+	}
 }
@@ -26,7 +26,7 @@ import alarm.AlarmGroup;
 import alarm.AlarmManager;
 import alarm.ERepetition;
 import alarm.MusicAlarm;
-import util.Util;
+import util.ResourceRegistry;
 
 /**
  * This widget represents the graphical front end for programming an alarm
@@ -34,7 +34,7 @@ import util.Util;
  * @author Raven
  *
  */
-public class AlarmSetter extends FontInheritComposite {
+public class AlarmSetter extends ReusablePanel {
 	
 	/**
 	 * The time picker used for programming the alarm time
@@ -84,7 +84,7 @@ public class AlarmSetter extends FontInheritComposite {
 		title = new FontInheritLabel(this, SWT.CENTER);
 		title.setText("Set Alarm");
 		title.setLayoutData(new GridData(SWT.FILL, SWT.FILL, true, false));
-		Util.magnifyFont(title, 1.5);
+		ResourceRegistry.magnifyFont(title, 1.5);
 		
 		
 		// create content
@@ -314,6 +314,23 @@ public class AlarmSetter extends FontInheritComposite {
 		throw new IllegalAccessError("No support for custom layouts!");
 	}
 	
+	@Override
+	public void reset() {
+		nameText.setText("Unnamed");
+		time.setTime(new int[] { 0, 0 });
+		
+		for (Button currentButton : dayButtons.values()) {
+			currentButton.setSelection(false);
+			currentButton.setForeground(
+					getDisplay().getSystemColor(SWT.COLOR_BLACK));
+		}
+		days.clear();
+		
+		repeat.setSelection(false);
+		repeat.setEnabled(false);
+		repeat.redraw();
+	}
+	
 	/**
 	 * Creates the button that will be placed in the bottom left
 	 * 
@@ -328,7 +345,7 @@ public class AlarmSetter extends FontInheritComposite {
 		cancelButton.addSelectionListener(new SelectionAdapter() {
 			@Override
 			public void widgetSelected(SelectionEvent e) {
-				AlarmSetter.this.dispose();
+				AlarmSetter.this.close();
 			}
 		});
 		
@@ -351,7 +368,7 @@ public class AlarmSetter extends FontInheritComposite {
 			public void widgetSelected(SelectionEvent e) {
 				AlarmManager.getManager().addGroup(getAsAlarmGroup());
 				
-				AlarmSetter.this.dispose();
+				AlarmSetter.this.close();
 			}
 		});
 		
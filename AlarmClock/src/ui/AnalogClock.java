@@ -1,22 +1,23 @@
 package ui;
 
-import java.util.ArrayList;
 import java.util.Calendar;
-import java.util.List;
-import java.util.Timer;
-import java.util.TimerTask;
 
 import org.eclipse.swt.SWT;
 import org.eclipse.swt.events.DisposeEvent;
 import org.eclipse.swt.events.DisposeListener;
 import org.eclipse.swt.events.PaintEvent;
 import org.eclipse.swt.events.PaintListener;
+import org.eclipse.swt.graphics.Color;
+import org.eclipse.swt.graphics.GC;
+import org.eclipse.swt.graphics.Image;
 import org.eclipse.swt.graphics.Point;
 import org.eclipse.swt.graphics.Rectangle;
 import org.eclipse.swt.widgets.Canvas;
 import org.eclipse.swt.widgets.Composite;
 import org.eclipse.swt.widgets.Display;
 
+import util.FrameStatistics;
+
 /**
  * This class provides graphical representation of the current time in form of
  * an analog clock. It will scale to any given size.
@@ -25,9 +26,32 @@ import org.eclipse.swt.widgets.Display;
  *
  */
 public class AnalogClock extends Canvas
-		implements PaintListener, DisposeListener {
+		implements PaintListener, DisposeListener, ITickListener {
 	
 	public static int DEFAULT_HEIGHT = 80;
+	/**
+	 * Whether the clocks should print how many pixels are redrawn per tick
+	 */
+	public static boolean LOG_REDRAW_STATISTICS = false;
+	/**
+	 * The amount of ticks the redraw statistics are printed after
+	 */
+	public static int REDRAW_STATISTICS_INTERVAL = 60;
+	/**
+	 * The amount of frames per second that are rendered in sweep mode. The
+	 * frames are aligned to full milliseconds so the effective rate may be
+	 * slightly higher.
+	 */
+	public static int SWEEP_FRAME_RATE = 30;
+	/**
+	 * Whether the clocks should print their frame statistics in sweep mode
+	 * (every {@link #FRAME_STATISTICS_INTERVAL} frames)
+	 */
+	public static boolean LOG_FRAME_STATISTICS = false;
+	/**
+	 * The amount of frames the frame statistics are printed after
+	 */
+	public static int FRAME_STATISTICS_INTERVAL = 300;
 	
 	/**
 	 * A coefficient used for calculating the base thickness all drawn lines are
@@ -39,10 +63,6 @@ public class AnalogClock extends Canvas
 	 * be drawn
 	 */
 	private double orientationLineLengthCoefficient;
-	/**
-	 * The timer that is used in order to refresh the time display every second
-	 */
-	private Timer updateTimer;
 	/**
 	 * Indicates whether if the clock has a different height and width it should
 	 * adapt to it and form an ovale instead of a circle
@@ -52,6 +72,44 @@ public class AnalogClock extends Canvas
 	 * A reference to the display thread this clock belongs to
 	 */
 	protected Display display;
+	/**
+	 * The static face of the clock (frame and orientation lines). It is only
+	 * rendered again if the size or the appearance of the clock changes.
+	 */
+	protected Image faceImage;
+	/**
+	 * The time the hands are displayed for. It is updated on every tick so
+	 * that all paints in between show the same time.
+	 */
+	protected Calendar time;
+	/**
+	 * The bounds of the hands (hour, minute, second) that have been painted
+	 * last or <code>null</code> if they haven't been painted yet
+	 */
+	protected Rectangle[] paintedHandBounds;
+	/**
+	 * The amount of pixels that have been invalidated since the redraw
+	 * statistics have been printed
+	 */
+	protected long redrawnPixels;
+	/**
+	 * The amount of ticks since the redraw statistics have been printed
+	 */
+	protected int redrawTicks;
+	/**
+	 * Indicates whether the hands move continuously instead of once per
+	 * second
+	 */
+	protected boolean sweep;
+	/**
+	 * The time the last sweep frame has been rendered at in terms of
+	 * {@link System#nanoTime()} or 0 if there was none yet
+	 */
+	protected long lastFrameNanos;
+	/**
+	 * The durations of the sweep frames
+	 */
+	protected FrameStatistics frameStatistics;
 	
 	
 	/**
@@ -78,6 +136,8 @@ public class AnalogClock extends Canvas
 		orientationLineLengthCoefficient = 1;
 		scaleIndependent = allowIndependentScaling;
 		
+		frameStatistics = new FrameStatistics();
+		
 		addDisposeListener(this);
 		
 		setVisible(true);
@@ -88,30 +148,110 @@ public class AnalogClock extends Canvas
 		super.setVisible(visible);
 		
 		if (visible) {
-			updateTimer = new Timer(false);
-			updateTimer.scheduleAtFixedRate(new TimerTask() {
-				
-				@Override
-				public void run() {
-					// Make sure to call this mehtod from the correct thread
-					display.asyncExec(new Runnable() {
-						
-						@Override
-						public void run() {
-							if (!AnalogClock.this.isDisposed()) {
-								AnalogClock.this.redraw();
-							} else {
-								updateTimer.cancel();
-							}
-						}
-					});
-				}
-			}, 1000 - Calendar.getInstance().get(Calendar.MILLISECOND), 1000);
+			startUpdates();
 		} else {
-			if (updateTimer != null) {
-				updateTimer.cancel();
+			stopUpdates();
+		}
+	}
+	
+	/**
+	 * Starts updating the clock either every second or in sweep mode with
+	 * {@link #SWEEP_FRAME_RATE}
+	 */
+	protected void startUpdates() {
+		lastFrameNanos = 0;
+		
+		UITicker.getTicker(display).subscribe(this,
+				sweep ? 1000 / Math.max(1, SWEEP_FRAME_RATE) : 1000);
+	}
+	
+	/**
+	 * Stops updating the clock
+	 */
+	protected void stopUpdates() {
+		if (!display.isDisposed()) {
+			UITicker.getTicker(display).unsubscribe(this);
+		}
+	}
+	
+	@Override
+	public void tick(long time) {
+		if (isDisposed()) {
+			stopUpdates();
+			return;
+		}
+		
+		if (sweep) {
+			recordFrame();
+		}
+		
+		redrawHands();
+	}
+	
+	/**
+	 * Records the duration of the current sweep frame. Frames that took a
+	 * multiple of the frame period have skipped the frames in between which
+	 * are counted as missed.
+	 */
+	protected void recordFrame() {
+		long now = System.nanoTime();
+		
+		if (lastFrameNanos != 0) {
+			long duration = now - lastFrameNanos;
+			long period = 1000000000L / Math.max(1, SWEEP_FRAME_RATE);
+			
+			frameStatistics.recordFrame(duration);
+			
+			// allow half a period of jitter before a frame counts as skipped
+			long missed = (duration + period / 2) / period - 1;
+			
+			if (missed > 0) {
+				frameStatistics.recordMissedFrames(missed);
+			}
+			
+			if (LOG_FRAME_STATISTICS && frameStatistics.getFrameCount()
+					% FRAME_STATISTICS_INTERVAL == 0) {
+				System.out.println("AnalogClock: " + frameStatistics);
 			}
 		}
+		
+		lastFrameNanos = now;
+	}
+	
+	/**
+	 * Sets whether the hands should move continuously (rendered with
+	 * {@link #SWEEP_FRAME_RATE}) instead of once per second
+	 * 
+	 * @param sweep
+	 *            Whether to use the sweep mode
+	 */
+	public void setSweep(boolean sweep) {
+		checkWidget();
+		
+		if (this.sweep == sweep) {
+			return;
+		}
+		
+		this.sweep = sweep;
+		frameStatistics.reset();
+		
+		if (isVisible()) {
+			startUpdates();
+		}
+	}
+	
+	/**
+	 * Checks whether the hands move continuously
+	 */
+	public boolean isSweep() {
+		return sweep;
+	}
+	
+	/**
+	 * Gets the frame statistics of the sweep mode
+	 */
+	public FrameStatistics getFrameStatistics() {
+		return frameStatistics;
 	}
 	
 	@Override
@@ -122,28 +262,119 @@ public class AnalogClock extends Canvas
 		
 		Rectangle clientArea = getClientArea();
 		
-		// clear previous paintings
-		e.gc.fillRectangle(clientArea);
+		if (clientArea.width <= 0 || clientArea.height <= 0) {
+			return;
+		}
+		
+		if (time == null) {
+			time = Calendar.getInstance();
+		}
+		
+		// the face overwrites the previous paintings (only the invalidated
+		// part has to be copied)
+		Rectangle dirty = new Rectangle(e.x, e.y, e.width, e.height)
+				.intersection(clientArea);
+		
+		if (!dirty.isEmpty()) {
+			e.gc.drawImage(getFaceImage(clientArea), dirty.x - clientArea.x,
+					dirty.y - clientArea.y, dirty.width, dirty.height, dirty.x,
+					dirty.y, dirty.width, dirty.height);
+		}
 		
 		Point center = new Point(clientArea.width / 2 + clientArea.x,
 				clientArea.height / 2 + clientArea.y);
 		
-		drawFrame(e, center);
-		drawPointers(e, center);
+		drawPointers(e.gc, center);
+		
+		paintedHandBounds = getHandBounds(clientArea, time);
 	}
 	
 	/**
-	 * Draws the pointers of this clock
+	 * Advances the clock to the current time and invalidates the areas of the
+	 * hands' old and new positions. If the hands haven't been painted yet the
+	 * whole clock is redrawn.
+	 */
+	protected void redrawHands() {
+		time = Calendar.getInstance();
+		
+		Rectangle clientArea = getClientArea();
+		
+		if (paintedHandBounds == null) {
+			redraw();
+			
+			countRedrawnPixels(clientArea.width * clientArea.height,
+					clientArea);
+			
+			return;
+		}
+		
+		Rectangle[] newBounds = getHandBounds(clientArea, time);
+		long pixels = 0;
+		
+		for (int i = 0; i < newBounds.length; i++) {
+			if (newBounds[i].equals(paintedHandBounds[i])) {
+				// the hand hasn't moved a pixel (anything crossing it is
+				// repainted by the clipped paint of the other hands)
+				continue;
+			}
+			
+			Rectangle area = paintedHandBounds[i].union(newBounds[i])
+					.intersection(clientArea);
+			
+			if (!area.isEmpty()) {
+				redraw(area.x, area.y, area.width, area.height, false);
+				
+				pixels += area.width * area.height;
+			}
+		}
+		
+		countRedrawnPixels(pixels, clientArea);
+	}
+	
+	/**
+	 * Adds the given amount of pixels to the redraw statistics and prints
+	 * them if {@link #LOG_REDRAW_STATISTICS} is set
 	 * 
-	 * @param e
-	 *            The paint event used to draw the pointers
-	 * @param center
-	 *            The center of the clock
+	 * @param pixels
+	 *            The amount of pixels that have been invalidated in this tick
+	 * @param clientArea
+	 *            The area of the whole clock
+	 */
+	protected void countRedrawnPixels(long pixels, Rectangle clientArea) {
+		if (!LOG_REDRAW_STATISTICS) {
+			return;
+		}
+		
+		redrawnPixels += pixels;
+		redrawTicks++;
+		
+		if (redrawTicks >= REDRAW_STATISTICS_INTERVAL) {
+			long fullPixels = (long) clientArea.width * clientArea.height;
+			
+			System.out.println(String.format(
+					"AnalogClock: %d px redrawn per tick (full redraw: %d px, %.1f%%)",
+					redrawnPixels / redrawTicks, fullPixels,
+					(fullPixels == 0) ? 0
+							: redrawnPixels * 100.0 / redrawTicks / fullPixels));
+			
+			redrawnPixels = 0;
+			redrawTicks = 0;
+		}
+	}
+	
+	/**
+	 * Calculates the end points of the hands (hour, minute, second)
+	 * 
+	 * @param clientArea
+	 *            The area the clock is drawn in
+	 * @param cal
+	 *            The time to display
 	 */
-	protected void drawPointers(PaintEvent e, Point center) {
+	protected Point[] getHandEndPoints(Rectangle clientArea, Calendar cal) {
 		double radBase = (2 * Math.PI) / 60;
 		
-		Rectangle clientArea = getClientArea();
+		Point center = new Point(clientArea.width / 2 + clientArea.x,
+				clientArea.height / 2 + clientArea.y);
 		double halfWidth = clientArea.width / 2.0;
 		double halfHeight = clientArea.height / 2.0;
 		
@@ -152,90 +383,192 @@ public class AnalogClock extends Canvas
 			halfHeight = halfWidth = Math.min(halfHeight, halfWidth);
 		}
 		
-		Calendar cal = Calendar.getInstance();
-		
 		double hourAngle = radBase * 5
 				* (cal.get(Calendar.HOUR) + cal.get(Calendar.MINUTE) / 60.0
 						+ cal.get(Calendar.SECOND) / 3600.0);
+		double seconds = cal.get(Calendar.SECOND);
 		
-		Point hourPointerEndCoordinates = new Point(
-				center.x + (int) (Math.sin(hourAngle) * halfWidth * 0.75),
-				center.y - (int) (Math.cos(hourAngle) * halfHeight * 0.75));
+		if (sweep) {
+			seconds += cal.get(Calendar.MILLISECOND) / 1000.0;
+		}
 		
-		// draw the hour pointer
-		e.gc.setForeground(display.getSystemColor(SWT.COLOR_BLUE));
-		e.gc.setLineWidth(calculateBaseLineThickness() * 2);
-		e.gc.drawLine(center.x, center.y, hourPointerEndCoordinates.x,
-				hourPointerEndCoordinates.y);
+		double minuteAngle = radBase
+				* (cal.get(Calendar.MINUTE) + seconds / 60.0);
+		double secondAngle = radBase * seconds;
+		
+		return new Point[] {
+				new Point(
+						center.x + (int) (Math.sin(hourAngle) * halfWidth
+								* 0.75),
+						center.y - (int) (Math.cos(hourAngle) * halfHeight
+								* 0.75)),
+				new Point(center.x + (int) (Math.sin(minuteAngle) * halfWidth),
+						center.y - (int) (Math.cos(minuteAngle) * halfHeight)),
+				new Point(center.x + (int) (Math.sin(secondAngle) * halfWidth),
+						center.y - (int) (Math.cos(secondAngle)
+								* halfHeight)) };
+	}
+	
+	/**
+	 * Gets the line widths of the hands (hour, minute, second)
+	 */
+	protected int[] getHandWidths() {
+		int base = calculateBaseLineThickness();
 		
+		return new int[] { base * 2, base, base / 2 };
+	}
+	
+	/**
+	 * Calculates the areas covered by the hands (hour, minute, second) at the
+	 * given time including the line width and the antialiasing
+	 * 
+	 * @param clientArea
+	 *            The area the clock is drawn in
+	 * @param cal
+	 *            The time to display
+	 */
+	protected Rectangle[] getHandBounds(Rectangle clientArea, Calendar cal) {
+		Point center = new Point(clientArea.width / 2 + clientArea.x,
+				clientArea.height / 2 + clientArea.y);
+		Point[] ends = getHandEndPoints(clientArea, cal);
+		int[] widths = getHandWidths();
 		
-		double minuteAngle = radBase
-				* (cal.get(Calendar.MINUTE) + cal.get(Calendar.SECOND) / 60.0);
-		Point minutePointerEndCoordinates = new Point(
-				center.x + (int) (Math.sin(minuteAngle) * halfWidth),
-				center.y - (int) (Math.cos(minuteAngle) * halfHeight));
+		Rectangle[] bounds = new Rectangle[ends.length];
 		
-		// draw the minute pointer
-		e.gc.setForeground(display.getSystemColor(SWT.COLOR_GREEN));
-		e.gc.setLineWidth(calculateBaseLineThickness());
-		e.gc.drawLine(center.x, center.y, minutePointerEndCoordinates.x,
-				minutePointerEndCoordinates.y);
+		for (int i = 0; i < ends.length; i++) {
+			// a width of 0 is drawn as a 1 pixel line
+			int margin = Math.max(widths[i], 1) / 2 + 2;
+			
+			int x = Math.min(center.x, ends[i].x) - margin;
+			int y = Math.min(center.y, ends[i].y) - margin;
+			
+			bounds[i] = new Rectangle(x, y,
+					Math.abs(center.x - ends[i].x) + 2 * margin + 1,
+					Math.abs(center.y - ends[i].y) + 2 * margin + 1);
+		}
+		
+		return bounds;
+	}
+	
+	/**
+	 * Gets the image of the clock's face for the given size. The image is
+	 * rendered if it doesn't exist yet or if its size doesn't match.
+	 * 
+	 * @param clientArea
+	 *            The area the clock is drawn in
+	 */
+	protected Image getFaceImage(Rectangle clientArea) {
+		if (faceImage != null) {
+			Rectangle bounds = faceImage.getBounds();
+			
+			if (bounds.width == clientArea.width
+					&& bounds.height == clientArea.height) {
+				return faceImage;
+			}
+			
+			faceImage.dispose();
+		}
+		
+		faceImage = new Image(display, clientArea.width, clientArea.height);
+		
+		GC gc = new GC(faceImage);
+		gc.setAntialias(SWT.ON);
+		gc.setBackground(getBackground());
+		gc.setForeground(getForeground());
+		
+		gc.fillRectangle(0, 0, clientArea.width, clientArea.height);
+		drawFrame(gc,
+				new Point(clientArea.width / 2, clientArea.height / 2));
+		
+		gc.dispose();
+		
+		return faceImage;
+	}
+	
+	/**
+	 * Discards the cached face so that it is rendered again on the next paint
+	 */
+	protected void disposeFaceImage() {
+		if (faceImage != null) {
+			faceImage.dispose();
+			faceImage = null;
+		}
+	}
+	
+	/**
+	 * Draws the pointers of this clock
+	 * 
+	 * @param gc
+	 *            The GC used to draw the pointers
+	 * @param center
+	 *            The center of the clock
+	 */
+	protected void drawPointers(GC gc, Point center) {
+		Point[] ends = getHandEndPoints(getClientArea(),
+				(time == null) ? Calendar.getInstance() : time);
+		int[] widths = getHandWidths();
 		
-		double secondAngle = radBase
-				* Calendar.getInstance().get(Calendar.SECOND);
-		Point secondPointerEndCoordinates = new Point(
-				center.x + (int) (Math.sin(secondAngle) * halfWidth),
-				center.y - (int) (Math.cos(secondAngle) * halfHeight));
+		// draw the hour pointer
+		gc.setForeground(display.getSystemColor(SWT.COLOR_BLUE));
+		gc.setLineWidth(widths[0]);
+		gc.drawLine(center.x, center.y, ends[0].x, ends[0].y);
 		
 		// draw the minute pointer
-		e.gc.setForeground(display.getSystemColor(SWT.COLOR_RED));
-		e.gc.setLineWidth(calculateBaseLineThickness() / 2);
-		e.gc.drawLine(center.x, center.y, secondPointerEndCoordinates.x,
-				secondPointerEndCoordinates.y);
+		gc.setForeground(display.getSystemColor(SWT.COLOR_GREEN));
+		gc.setLineWidth(widths[1]);
+		gc.drawLine(center.x, center.y, ends[1].x, ends[1].y);
+		
+		// draw the second pointer
+		gc.setForeground(display.getSystemColor(SWT.COLOR_RED));
+		gc.setLineWidth(widths[2]);
+		gc.drawLine(center.x, center.y, ends[2].x, ends[2].y);
 	}
 	
 	/**
 	 * Draws the frame of the clock
 	 * 
-	 * @param e
-	 *            The PaintEvent to use
+	 * @param gc
+	 *            The GC to use
 	 * @param center
 	 *            The center of the clock
 	 */
-	protected void drawFrame(PaintEvent e, Point center) {
-		e.gc.drawOval(center.x - 3, center.y - 3, 6, 6);
+	protected void drawFrame(GC gc, Point center) {
+		gc.drawOval(center.x - 3, center.y - 3, 6, 6);
 		
-		int counter = 5;
+		Rectangle clientArea = getClientArea();
+		double halfWidth = clientArea.width / 2.0;
+		double halfHeight = clientArea.height / 2.0;
+		
+		if (!scaleIndependent) {
+			// stretch the clock so it fills the smaller side
+			halfHeight = halfWidth = Math.min(halfHeight, halfWidth);
+		}
+		
+		int baseLineThickness = calculateBaseLineThickness();
+		int orientationLineLength = calculateOrientationLineLength();
 		
 		// Draw the orientation lines
-		for (Point currentPoint : getOrientationPoints(center)) {
-			Point connectionVector = new Point(center.x - currentPoint.x,
-					center.y - currentPoint.y);
+		for (int i = 0; i < 60; i++) {
+			double currentRad = ((2 * Math.PI) / 60) * i;
+			int x = center.x + (int) (Math.sin(currentRad) * halfWidth);
+			int y = center.y + (int) (Math.cos(currentRad) * halfHeight);
 			int scaleLength;
 			
-			if (counter == 5) {
-				e.gc.setLineWidth(calculateBaseLineThickness());
-				scaleLength = calculateOrientationLineLength();
-				
-				counter = 0;
+			if (i % 5 == 0) {
+				gc.setLineWidth(baseLineThickness);
+				scaleLength = orientationLineLength;
 			} else {
-				e.gc.setLineWidth((int) (calculateBaseLineThickness() * 0.5));
-				scaleLength = (int) (calculateOrientationLineLength() * 0.5);
+				gc.setLineWidth((int) (baseLineThickness * 0.5));
+				scaleLength = (int) (orientationLineLength * 0.5);
 			}
 			
-			// normalize Vector to respective length
-			double length = Math.sqrt(Math.pow(connectionVector.x, 2)
-					+ Math.pow(connectionVector.y, 2));
-			connectionVector.x = (int) (connectionVector.x / length
-					* scaleLength);
-			connectionVector.y = (int) (connectionVector.y / length
-					* scaleLength);
+			// scale the vector to the center to the respective length
+			double vectorX = center.x - x;
+			double vectorY = center.y - y;
+			double length = Math.hypot(vectorX, vectorY);
 			
-			e.gc.drawLine(currentPoint.x, currentPoint.y,
-					currentPoint.x + connectionVector.x,
-					currentPoint.y + connectionVector.y);
-			
-			counter++;
+			gc.drawLine(x, y, x + (int) (vectorX / length * scaleLength),
+					y + (int) (vectorY / length * scaleLength));
 		}
 	}
 	
@@ -260,38 +593,6 @@ public class AnalogClock extends Canvas
 		return (int) (orientationLineLengthCoefficient * (coef / 30.0));
 	}
 	
-	/**
-	 * Calculates the orientation points for the frame
-	 * 
-	 * @param center
-	 *            The center of this clock
-	 * @return 60 equal spaced points points on a circle witht the respective
-	 *         radius {@link #halfHeight} and {@link #halfWidth}
-	 */
-	private List<Point> getOrientationPoints(Point center) {
-		List<Point> list = new ArrayList<Point>();
-		
-		Rectangle clientArea = getClientArea();
-		double halfWidth = clientArea.width / 2.0;
-		double halfHeight = clientArea.height / 2.0;
-		
-		if (!scaleIndependent) {
-			// stretch the clock so it fills the smaller side
-			halfHeight = halfWidth = Math.min(halfHeight, halfWidth);
-		}
-		
-		int amountOfPoints = 60;
-		
-		for (int i = 0; i < amountOfPoints; i++) {
-			double currentRad = ((2 * Math.PI) / amountOfPoints) * i;
-			list.add(new Point(
-					center.x + (int) (Math.sin(currentRad) * halfWidth),
-					center.y + (int) (Math.cos(currentRad) * halfHeight)));
-		}
-		
-		return list;
-	}
-	
 	@Override
 	public Point computeSize(int wHint, int hHint) {
 		checkWidget();
@@ -317,9 +618,23 @@ public class AnalogClock extends Canvas
 	
 	@Override
 	public void widgetDisposed(DisposeEvent e) {
-		if (updateTimer != null) {
-			updateTimer.cancel();
-		}
+		stopUpdates();
+		
+		disposeFaceImage();
+	}
+	
+	@Override
+	public void setBackground(Color color) {
+		super.setBackground(color);
+		
+		disposeFaceImage();
+	}
+	
+	@Override
+	public void setForeground(Color color) {
+		super.setForeground(color);
+		
+		disposeFaceImage();
 	}
 	
 	/**
@@ -330,6 +645,9 @@ public class AnalogClock extends Canvas
 	 */
 	public void setLineThicknessCoefficient(double coef) {
 		lineThicknessCoefficient = Math.abs(coef);
+		
+		disposeFaceImage();
+		paintedHandBounds = null;
 	}
 	
 	/**
@@ -341,6 +659,9 @@ public class AnalogClock extends Canvas
 	 */
 	public void setOrientationLineLengthCoefficient(double coef) {
 		orientationLineLengthCoefficient = Math.abs(coef);
+		
+		disposeFaceImage();
+		paintedHandBounds = null;
 	}
 	
 	
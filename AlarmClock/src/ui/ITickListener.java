@@ -0,0 +1,21 @@
+package ui;
+
+/**
+ * An interface describing a listener that is called periodically on the
+ * display thread by the {@link UITicker}
+ * 
+ * @author Raven
+ *
+ */
+public interface ITickListener {
+	
+	/**
+	 * Gets called on the display thread whenever the period this listener has
+	 * subscribed with has elapsed
+	 * 
+	 * @param time
+	 *            The time of this tick in terms of
+	 *            {@link System#currentTimeMillis()}
+	 */
+	public void tick(long time);
+}
@@ -7,7 +7,6 @@ import org.eclipse.swt.SWT;
 import org.eclipse.swt.events.ModifyEvent;
 import org.eclipse.swt.events.ModifyListener;
 import org.eclipse.swt.graphics.Color;
-import org.eclipse.swt.graphics.GC;
 import org.eclipse.swt.graphics.Point;
 import org.eclipse.swt.layout.GridData;
 import org.eclipse.swt.layout.GridLayout;
@@ -16,6 +15,7 @@ import org.eclipse.swt.widgets.Event;
 import org.eclipse.swt.widgets.Listener;
 
 import alarm.IListener;
+import util.TextMetrics;
 
 public class IntegerSpinner extends FontInheritComposite {
 	
@@ -221,14 +221,9 @@ public class IntegerSpinner extends FontInheritComposite {
 	
 	@Override
 	public Point computeSize(int wHint, int hHint) {
-		GC gc = new GC(valueField);
-		gc.setFont(valueField.getFont());
-		
-		Point maxPoint = gc.textExtent(String.valueOf(max));
-		Point minPoint = gc.textExtent(String.valueOf(min));
-		
-		Point preferredSize = new Point(Math.max(maxPoint.x, minPoint.x),
-				Math.max(maxPoint.y, minPoint.y));
+		Point preferredSize = TextMetrics.getMetrics(getDisplay())
+				.maxTextExtent(valueField.getFont(), String.valueOf(max),
+						String.valueOf(min));
 		
 		if ((wHint & SWT.DEFAULT) != SWT.DEFAULT) {
 			preferredSize.x = Math.max(preferredSize.x, wHint);
@@ -6,6 +6,7 @@ import org.eclipse.swt.events.ControlEvent;
 import org.eclipse.swt.events.ControlListener;
 import org.eclipse.swt.events.DisposeEvent;
 import org.eclipse.swt.events.DisposeListener;
+import org.eclipse.swt.graphics.Rectangle;
 import org.eclipse.swt.layout.GridData;
 import org.eclipse.swt.layout.GridLayout;
 import org.eclipse.swt.widgets.Button;
@@ -16,6 +17,8 @@ import org.eclipse.swt.widgets.Event;
 import org.eclipse.swt.widgets.Layout;
 import org.eclipse.swt.widgets.Listener;
 
+import util.FrameStatistics;
+
 /**
  * A class providing support for arranging buttons or other elements around or
  * next to an analog clock
@@ -25,6 +28,12 @@ import org.eclipse.swt.widgets.Listener;
  */
 public class IntegratedClockUI extends FontInheritComposite implements ControlListener {
 	
+	/**
+	 * Indicates whether the time needed to lay out a switched panel should be
+	 * logged
+	 */
+	public static boolean LOG_LAYOUT_TIMES = false;
+	
 	/**
 	 * The composite holding the contents for the left side
 	 */
@@ -66,6 +75,19 @@ public class IntegratedClockUI extends FontInheritComposite implements ControlLi
 	 * function has been called
 	 */
 	protected int hiddenBeforeAutoHide;
+	/**
+	 * The client area the current geometry has been computed for or
+	 * <code>null</code> if it hasn't been computed yet
+	 */
+	protected Rectangle geometryArea;
+	/**
+	 * The hidden status the current geometry has been computed for
+	 */
+	protected int geometryHidden;
+	/**
+	 * The durations of the layouts after a panel switch
+	 */
+	protected FrameStatistics layoutStatistics;
 	
 	/**
 	 * Creates a new instance of this widget.
@@ -84,6 +106,7 @@ public class IntegratedClockUI extends FontInheritComposite implements ControlLi
 		display = Display.getCurrent();
 		hidden = SWT.NONE;
 		hiddenBeforeAutoHide = SWT.NONE;
+		layoutStatistics = new FrameStatistics();
 		
 		setFont(parent.getFont());
 		
@@ -236,7 +259,8 @@ public class IntegratedClockUI extends FontInheritComposite implements ControlLi
 	}
 	
 	/**
-	 * Updates the size of this widget's components and re-layouts them
+	 * Updates the size of this widget's components and re-layouts them if
+	 * their geometry has changed
 	 */
 	public void updateWidget() {
 		checkWidget();
@@ -246,6 +270,62 @@ public class IntegratedClockUI extends FontInheritComposite implements ControlLi
 			return;
 		}
 		
+		if (updateGeometry()) {
+			// only this composite has to be laid out again as the resized
+			// children lay out themselves
+			layout(true);
+		}
+	}
+	
+	/**
+	 * Lays out the given side after its top control has changed. If the
+	 * geometry of this widget hasn't changed only the side itself is laid out.
+	 * 
+	 * @param side
+	 *            The side whose panel has been switched
+	 */
+	protected void updatePanel(Composite side) {
+		if (clock.isDisposed() || (left != null && left.isDisposed())
+				|| (right != null && right.isDisposed())) {
+			return;
+		}
+		
+		long start = System.nanoTime();
+		
+		if (updateGeometry()) {
+			layout(true);
+		} else {
+			side.layout(true);
+		}
+		
+		long duration = System.nanoTime() - start;
+		layoutStatistics.recordFrame(duration);
+		
+		if (LOG_LAYOUT_TIMES) {
+			System.out.println(String.format(
+					"Panel switch layout took %.2f ms (p50: %.2f ms, p99: %.2f ms)",
+					duration / 1000000.0, layoutStatistics.getPercentile(50),
+					layoutStatistics.getPercentile(99)));
+		}
+	}
+	
+	/**
+	 * Computes the size hints of this widget's components for the current
+	 * client area and hidden status. Nothing is computed if neither of them has
+	 * changed since the last call.
+	 * 
+	 * @return Whether the geometry has changed
+	 */
+	protected boolean updateGeometry() {
+		Rectangle clientArea = getClientArea();
+		
+		if (clientArea.equals(geometryArea) && hidden == geometryHidden) {
+			return false;
+		}
+		
+		geometryArea = clientArea;
+		geometryHidden = hidden;
+		
 		GridLayout layout = (GridLayout) getLayout();
 		int horizontalLayoutSpace = layout.horizontalSpacing * layout.numColumns
 				+ layout.marginLeft + layout.marginRight;
@@ -257,8 +337,8 @@ public class IntegratedClockUI extends FontInheritComposite implements ControlLi
 		// Make sure the respective components resize as well
 		GridData componentData = (GridData) clock.getLayoutData();
 		int size = (int) (Math.min(
-				getClientArea().width - horizontalLayoutSpace,
-				getClientArea().height - verticalLayoutSpace)
+				clientArea.width - horizontalLayoutSpace,
+				clientArea.height - verticalLayoutSpace)
 				* (bothHidden ? 1 : 0.85));
 		componentData.heightHint = size;
 		componentData.widthHint = size;
@@ -269,32 +349,32 @@ public class IntegratedClockUI extends FontInheritComposite implements ControlLi
 					&& hidden == SWT.NONE) {
 				// both panels are visible
 				componentData = (GridData) left.getLayoutData();
-				componentData.heightHint = getClientArea().height
+				componentData.heightHint = clientArea.height
 						- verticalLayoutSpace;
-				componentData.widthHint = (getClientArea().width - size
+				componentData.widthHint = (clientArea.width - size
 						- horizontalLayoutSpace) / 2;
 				
 				componentData = (GridData) right.getLayoutData();
-				componentData.heightHint = getClientArea().height
+				componentData.heightHint = clientArea.height
 						- verticalLayoutSpace;
-				componentData.widthHint = (getClientArea().width - size
+				componentData.widthHint = (clientArea.width - size
 						- horizontalLayoutSpace) / 2;
 			} else {
 				if ((getStyle() & SWT.LEFT) == SWT.LEFT
 						&& (hidden & SWT.LEFT) != SWT.LEFT) {
 					// only left panel should be visible
 					componentData = (GridData) left.getLayoutData();
-					componentData.heightHint = getClientArea().height
+					componentData.heightHint = clientArea.height
 							- verticalLayoutSpace;
-					componentData.widthHint = getClientArea().width - size
+					componentData.widthHint = clientArea.width - size
 							- horizontalLayoutSpace;
 				} else {
 					if ((hidden & SWT.RIGHT) != SWT.RIGHT) {
 						// only right panel should be visible
 						componentData = (GridData) right.getLayoutData();
-						componentData.heightHint = getClientArea().height
+						componentData.heightHint = clientArea.height
 								- verticalLayoutSpace;
-						componentData.widthHint = getClientArea().width - size
+						componentData.widthHint = clientArea.width - size
 								- horizontalLayoutSpace;
 					}
 				}
@@ -304,9 +384,9 @@ public class IntegratedClockUI extends FontInheritComposite implements ControlLi
 		if (bothHidden) {
 			// set the size of the left component in order to center the clock
 			componentData = (GridData) left.getLayoutData();
-			componentData.heightHint = getClientArea().height
+			componentData.heightHint = clientArea.height
 					- verticalLayoutSpace;
-			componentData.widthHint = (getClientArea().width - size
+			componentData.widthHint = (clientArea.width - size
 					- horizontalLayoutSpace) / 2;
 			
 			// hide panels
@@ -339,7 +419,7 @@ public class IntegratedClockUI extends FontInheritComposite implements ControlLi
 			}
 		}
 		
-		layout(true, true);
+		return true;
 	}
 	
 	/**
@@ -362,7 +442,9 @@ public class IntegratedClockUI extends FontInheritComposite implements ControlLi
 		
 		if ((position & SWT.LEFT) == SWT.LEFT) {
 			// switch to left
-			comp.setParent(left);
+			if (comp.getParent() != left) {
+				comp.setParent(left);
+			}
 			leftStack.topControl = comp;
 			
 			listener = new DisposeListener() {
@@ -370,12 +452,14 @@ public class IntegratedClockUI extends FontInheritComposite implements ControlLi
 				@Override
 				public void widgetDisposed(DisposeEvent e) {
 					leftStack.topControl = leftButtons;
-					updateWidget();
+					updatePanel(left);
 				}
 			};
 		} else {
 			// switch to right
-			comp.setParent(right);
+			if (comp.getParent() != right) {
+				comp.setParent(right);
+			}
 			rightStack.topControl = comp;
 			
 			listener = new DisposeListener() {
@@ -383,7 +467,7 @@ public class IntegratedClockUI extends FontInheritComposite implements ControlLi
 				@Override
 				public void widgetDisposed(DisposeEvent e) {
 					rightStack.topControl = rightButtons;
-					updateWidget();
+					updatePanel(right);
 				}
 			};
 		}
@@ -392,7 +476,7 @@ public class IntegratedClockUI extends FontInheritComposite implements ControlLi
 			comp.addDisposeListener(listener);
 		}
 		
-		updateWidget();
+		updatePanel(((position & SWT.LEFT) == SWT.LEFT) ? left : right);
 	}
 	
 	/**
@@ -409,6 +493,27 @@ public class IntegratedClockUI extends FontInheritComposite implements ControlLi
 		setPanel(comp, position, true);
 	}
 	
+	/**
+	 * Shows the buttons on the given side again instead of the panel that has
+	 * been set via {@link #setPanel(Composite, int)}. The panel itself is kept.
+	 * 
+	 * @param position
+	 *            The side whose panel should be removed (SWT.LEFT or
+	 *            SWT.RIGHT)
+	 */
+	public void removePanel(int position) {
+		checkPosition(position, false);
+		checkWidget();
+		
+		if ((position & SWT.LEFT) == SWT.LEFT) {
+			leftStack.topControl = leftButtons;
+			updatePanel(left);
+		} else {
+			rightStack.topControl = rightButtons;
+			updatePanel(right);
+		}
+	}
+	
 	/**
 	 * Hides the panel(s) with the given position
 	 * 
@@ -426,6 +531,14 @@ public class IntegratedClockUI extends FontInheritComposite implements ControlLi
 		updateWidget();
 	}
 	
+	/**
+	 * Gets the statistics about the time needed to lay out this widget after a
+	 * panel has been switched
+	 */
+	public FrameStatistics getLayoutStatistics() {
+		return layoutStatistics;
+	}
+	
 	/**
 	 * Gets the available panels for the given position
 	 * 
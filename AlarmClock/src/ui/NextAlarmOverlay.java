@@ -0,0 +1,199 @@
+package ui;
+
+import org.eclipse.swt.SWT;
+import org.eclipse.swt.graphics.Font;
+import org.eclipse.swt.graphics.FontData;
+import org.eclipse.swt.graphics.Point;
+import org.eclipse.swt.graphics.Rectangle;
+import org.eclipse.swt.layout.FillLayout;
+import org.eclipse.swt.widgets.Display;
+import org.eclipse.swt.widgets.Event;
+import org.eclipse.swt.widgets.Label;
+import org.eclipse.swt.widgets.Listener;
+import org.eclipse.swt.widgets.Shell;
+
+import alarm.IAlarm;
+import util.ResourceRegistry;
+
+/**
+ * An on-screen display showing when the next alarm is due. It is created once
+ * and only its text and visibility are updated, so repeated notifications
+ * replace each other instead of stacking up.
+ *
+ * @author Raven
+ *
+ */
+public class NextAlarmOverlay {
+
+	/**
+	 * The amount of milliseconds the overlay stays visible
+	 */
+	public static int DISPLAY_TIME = 5000;
+
+	/**
+	 * The shell the overlay is positioned relative to
+	 */
+	protected Shell parentShell;
+	/**
+	 * The shell of the overlay
+	 */
+	protected Shell shell;
+	/**
+	 * The label showing the message
+	 */
+	protected Label timeLabel;
+	/**
+	 * The callback hiding the overlay
+	 */
+	protected Runnable hideRunnable;
+
+
+	/**
+	 * Creates a new overlay
+	 *
+	 * @param parentShell
+	 *            The shell the overlay is centered on. The overlay gets
+	 *            disposed together with it.
+	 * @param fontSize
+	 *            The font height to use
+	 */
+	public NextAlarmOverlay(Shell parentShell, int fontSize) {
+		this.parentShell = parentShell;
+
+		Display display = parentShell.getDisplay();
+
+		shell = new Shell(display, SWT.NO_TRIM | SWT.NO_BACKGROUND);
+		shell.setLayout(new FillLayout());
+
+		FontData[] data = parentShell.getFont().getFontData();
+		data[0].setHeight(fontSize);
+		ResourceRegistry registry = ResourceRegistry.getRegistry(display);
+		Font font = registry.getFont(data);
+		registry.bind(shell, font);
+
+		shell.setFont(font);
+
+		timeLabel = new Label(shell, SWT.NO_BACKGROUND);
+		timeLabel.setFont(font);
+		ResourceRegistry.magnifyFont(timeLabel, 0.8);
+
+		hideRunnable = new Runnable() {
+
+			@Override
+			public void run() {
+				if (!shell.isDisposed()) {
+					shell.setVisible(false);
+				}
+			}
+		};
+
+		parentShell.addListener(SWT.Dispose, new Listener() {
+
+			@Override
+			public void handleEvent(Event event) {
+				dispose();
+			}
+		});
+	}
+
+	/**
+	 * Shows the given message. If the overlay is visible already its text is
+	 * replaced and it stays visible for another {@link #DISPLAY_TIME}.
+	 *
+	 * @param message
+	 *            The message to show
+	 */
+	public void show(String message) {
+		if (isDisposed()) {
+			return;
+		}
+
+		if (!message.equals(timeLabel.getText())) {
+			timeLabel.setText(message);
+			shell.pack();
+		}
+
+		Rectangle area = parentShell.getClientArea();
+		Point location = parentShell.getLocation();
+
+		shell.setLocation(area.width / 2 + location.x - shell.getSize().x / 2,
+				location.y + shell.getSize().y);
+
+		if (!shell.isVisible()) {
+			shell.open();
+		}
+
+		// rescheduling replaces the pending hide
+		shell.getDisplay().timerExec(DISPLAY_TIME, hideRunnable);
+	}
+
+	/**
+	 * Shows when the given alarm is due
+	 *
+	 * @param nextAlarm
+	 *            The next alarm or <code>null</code> if there is none
+	 */
+	public void showNextAlarm(IAlarm nextAlarm) {
+		show(getMessage(nextAlarm));
+	}
+
+	/**
+	 * Creates the message describing when the given alarm is due
+	 *
+	 * @param nextAlarm
+	 *            The next alarm or <code>null</code> if there is none
+	 */
+	public static String getMessage(IAlarm nextAlarm) {
+		if (nextAlarm == null || !nextAlarm.isActive()) {
+			return "No alarms set";
+		}
+
+		long currentTime = System.currentTimeMillis();
+		long alarmTime = nextAlarm.getAlarmDate().getTime();
+
+		long diff = alarmTime - currentTime;
+
+		int minuteFactor = 1000 * 60;
+		int hourFactor = minuteFactor * 60;
+
+		long hours = diff / hourFactor;
+		long minutes = (diff - hourFactor * hours) / minuteFactor;
+
+		if (hours > 48) {
+			// If the date is more than two days from now, only print out the
+			// date itself
+			return "Next alarm: " + nextAlarm.getAlarmDate();
+		} else {
+			// print hours until alarm
+			return "Next alarm in " + hours + " hours and " + minutes
+					+ " minutes";
+		}
+	}
+
+	/**
+	 * Hides the overlay
+	 */
+	public void hide() {
+		if (!isDisposed()) {
+			shell.getDisplay().timerExec(-1, hideRunnable);
+			shell.setVisible(false);
+		}
+	}
+
+	/**
+	 * Checks whether this overlay has been disposed
+	 */
+	public boolean isDisposed() {
+		return shell.isDisposed();
+	}
+
+	/**
+	 * Disposes this overlay
+	 */
+	public void dispose() {
+		if (!shell.isDisposed()) {
+			shell.getDisplay().timerExec(-1, hideRunnable);
+			shell.dispose();
+		}
+	}
+}
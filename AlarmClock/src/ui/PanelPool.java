@@ -0,0 +1,209 @@
+package ui;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.swt.SWT;
+import org.eclipse.swt.widgets.Event;
+import org.eclipse.swt.widgets.Listener;
+
+/**
+ * A pool of the panels that can be opened on an {@link IntegratedClockUI}.
+ * Every panel is built once (either in advance via {@link #prebuild()} or the
+ * first time it is opened) and is reset and reused afterwards instead of being
+ * created again. The time from the request to the panel being painted is
+ * recorded.
+ * 
+ * @author Raven
+ *
+ */
+public class PanelPool {
+	
+	/**
+	 * The amount of latencies that are kept per panel
+	 */
+	public static int MAX_LATENCIES = 100;
+	/**
+	 * Whether the latencies should be printed
+	 */
+	public static boolean LOG_LATENCIES = false;
+	
+	/**
+	 * A factory creating a panel
+	 * 
+	 * @author Raven
+	 *
+	 */
+	public interface IPanelFactory {
+		
+		/**
+		 * Creates the panel
+		 */
+		public ReusablePanel create();
+	}
+	
+	/**
+	 * A registered panel
+	 * 
+	 * @author Raven
+	 *
+	 */
+	protected static class PooledPanel {
+		/**
+		 * The factory creating the panel
+		 */
+		protected IPanelFactory factory;
+		/**
+		 * The side the panel is shown on
+		 */
+		protected int position;
+		/**
+		 * The panel or <code>null</code> if it hasn't been created yet
+		 */
+		protected ReusablePanel panel;
+		/**
+		 * The recorded latencies in milliseconds (oldest first)
+		 */
+		protected List<Double> latencies;
+	}
+	
+	/**
+	 * The UI the panels are shown on
+	 */
+	protected IntegratedClockUI ui;
+	/**
+	 * The registered panels by their name
+	 */
+	protected Map<String, PooledPanel> panels;
+	
+	
+	/**
+	 * Creates a new pool
+	 * 
+	 * @param ui
+	 *            The UI the panels are shown on
+	 */
+	public PanelPool(IntegratedClockUI ui) {
+		this.ui = ui;
+		
+		panels = new LinkedHashMap<String, PooledPanel>();
+	}
+	
+	/**
+	 * Registers a panel
+	 * 
+	 * @param name
+	 *            The name of the panel
+	 * @param position
+	 *            The side the panel is shown on (SWT.LEFT or SWT.RIGHT). The
+	 *            other side is hidden while it is open.
+	 * @param factory
+	 *            The factory creating the panel
+	 */
+	public void register(String name, int position, IPanelFactory factory) {
+		PooledPanel pooled = new PooledPanel();
+		pooled.factory = factory;
+		pooled.position = position;
+		pooled.latencies = new ArrayList<Double>();
+		
+		panels.put(name, pooled);
+	}
+	
+	/**
+	 * Creates all registered panels that haven't been created yet
+	 */
+	public void prebuild() {
+		for (PooledPanel current : panels.values()) {
+			getPanel(current);
+		}
+	}
+	
+	/**
+	 * Gets the panel of the given registration. It is created if it doesn't
+	 * exist yet (or has been disposed).
+	 */
+	protected ReusablePanel getPanel(final PooledPanel pooled) {
+		if (pooled.panel == null || pooled.panel.isDisposed()) {
+			pooled.panel = pooled.factory.create();
+			pooled.panel.setReusable(true);
+			pooled.panel.setVisible(false);
+			
+			pooled.panel.addListener(SWT.Close, new Listener() {
+				
+				@Override
+				public void handleEvent(Event event) {
+					ui.removePanel(pooled.position);
+					ui.hide(SWT.NONE);
+				}
+			});
+		}
+		
+		return pooled.panel;
+	}
+	
+	/**
+	 * Opens the panel with the given name
+	 * 
+	 * @param name
+	 *            The name the panel has been registered with
+	 * @return The opened panel
+	 */
+	public ReusablePanel open(String name) {
+		final long start = System.nanoTime();
+		final PooledPanel pooled = panels.get(name);
+		
+		if (pooled == null) {
+			throw new IllegalArgumentException(
+					"There is no panel named " + name);
+		}
+		
+		ReusablePanel panel = getPanel(pooled);
+		panel.reset();
+		
+		ui.setPanel(panel, pooled.position, false);
+		ui.hide(((pooled.position & SWT.LEFT) == SWT.LEFT) ? SWT.RIGHT
+				: SWT.LEFT);
+		
+		// paint the panel right away in order to know when it is visible
+		panel.update();
+		
+		recordLatency(name, pooled, System.nanoTime() - start);
+		
+		return panel;
+	}
+	
+	/**
+	 * Records the time it took to open a panel
+	 */
+	protected void recordLatency(String name, PooledPanel pooled,
+			long latencyNanos) {
+		double latency = latencyNanos / 1000000.0;
+		
+		if (pooled.latencies.size() >= MAX_LATENCIES) {
+			pooled.latencies.remove(0);
+		}
+		
+		pooled.latencies.add(latency);
+		
+		if (LOG_LATENCIES) {
+			System.out.println(String
+					.format("Opening latency of %s: %.2f ms", name, latency));
+		}
+	}
+	
+	/**
+	 * Gets the recorded opening latencies of the given panel in milliseconds
+	 * (oldest first)
+	 * 
+	 * @param name
+	 *            The name of the panel
+	 */
+	public List<Double> getLatencies(String name) {
+		PooledPanel pooled = panels.get(name);
+		
+		return (pooled == null) ? new ArrayList<Double>()
+				: new ArrayList<Double>(pooled.latencies);
+	}
+}
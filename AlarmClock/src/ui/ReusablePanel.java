@@ -0,0 +1,66 @@
+package ui;
+
+import org.eclipse.swt.SWT;
+import org.eclipse.swt.widgets.Composite;
+import org.eclipse.swt.widgets.Event;
+
+/**
+ * A panel that can either be disposed when it is closed or be kept and reused
+ * (see {@link PanelPool}). Panels should call {@link #close()} instead of
+ * disposing themselves.
+ * 
+ * @author Raven
+ *
+ */
+public class ReusablePanel extends FontInheritComposite {
+	
+	/**
+	 * Indicates whether this panel is kept when it gets closed
+	 */
+	protected boolean reusable;
+	
+	
+	public ReusablePanel(Composite parent, int style) {
+		super(parent, style);
+		
+		reusable = false;
+	}
+	
+	/**
+	 * Closes this panel. A reusable panel notifies its {@link SWT#Close}
+	 * listeners and is kept, any other panel is disposed.
+	 */
+	public void close() {
+		checkWidget();
+		
+		if (reusable) {
+			notifyListeners(SWT.Close, new Event());
+		} else {
+			dispose();
+		}
+	}
+	
+	/**
+	 * Resets this panel to the state of a newly created one. This gets called
+	 * before a reusable panel is shown again and does nothing by default.
+	 */
+	public void reset() {
+	}
+	
+	/**
+	 * Sets whether this panel should be kept when it gets closed
+	 * 
+	 * @param reusable
+	 *            Whether the panel is reusable
+	 */
+	public void setReusable(boolean reusable) {
+		this.reusable = reusable;
+	}
+	
+	/**
+	 * Checks whether this panel is kept when it gets closed
+	 */
+	public boolean isReusable() {
+		return reusable;
+	}
+}
@@ -0,0 +1,231 @@
+package ui;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.eclipse.swt.widgets.Display;
+
+/**
+ * A scheduler for periodic UI updates bound to a {@link Display}. All
+ * listeners of a display share a single callback that is scheduled with
+ * {@link Display#timerExec(int, Runnable)} so that no extra threads are
+ * needed. The ticks are aligned to multiples of their period on the wall
+ * clock, so listeners with a period of one second are called right after
+ * every full second.
+ * 
+ * @author Raven
+ *
+ */
+public class UITicker {
+	
+	/**
+	 * The key the ticker of a display is stored under
+	 */
+	protected static final String DATA_KEY = UITicker.class.getName();
+	
+	/**
+	 * A listener together with its period
+	 * 
+	 * @author Raven
+	 *
+	 */
+	protected static class Subscription {
+		/**
+		 * The subscribed listener
+		 */
+		protected ITickListener listener;
+		/**
+		 * The period in milliseconds
+		 */
+		protected long period;
+		/**
+		 * The time of the next tick in terms of
+		 * {@link System#currentTimeMillis()}
+		 */
+		protected long nextTime;
+	}
+	
+	/**
+	 * The display this ticker belongs to
+	 */
+	protected Display display;
+	/**
+	 * The subscribed listeners
+	 */
+	protected List<Subscription> subscriptions;
+	/**
+	 * The callback that is scheduled on the display
+	 */
+	protected Runnable tick;
+	
+	
+	/**
+	 * Creates a new ticker for the given display
+	 * 
+	 * @param display
+	 *            The display the ticks are executed on
+	 */
+	protected UITicker(Display display) {
+		this.display = display;
+		
+		subscriptions = new ArrayList<Subscription>();
+		
+		tick = new Runnable() {
+			
+			@Override
+			public void run() {
+				runTicks();
+			}
+		};
+	}
+	
+	/**
+	 * Gets the ticker of the given display. It is created on first use. This
+	 * method has to be called from the display thread.
+	 * 
+	 * @param display
+	 *            The display whose ticker should be obtained
+	 */
+	public static UITicker getTicker(Display display) {
+		UITicker ticker = (UITicker) display.getData(DATA_KEY);
+		
+		if (ticker == null) {
+			ticker = new UITicker(display);
+			display.setData(DATA_KEY, ticker);
+		}
+		
+		return ticker;
+	}
+	
+	/**
+	 * Subscribes the given listener. If it has been subscribed already its
+	 * period is replaced. This method has to be called from the display
+	 * thread.
+	 * 
+	 * @param listener
+	 *            The listener to call
+	 * @param period
+	 *            The period in milliseconds
+	 */
+	public void subscribe(ITickListener listener, long period) {
+		if (period <= 0) {
+			throw new IllegalArgumentException(
+					"The period has to be positive!");
+		}
+		
+		Subscription subscription = getSubscription(listener);
+		
+		if (subscription == null) {
+			subscription = new Subscription();
+			subscription.listener = listener;
+			subscriptions.add(subscription);
+		}
+		
+		subscription.period = period;
+		subscription.nextTime = getNextTime(System.currentTimeMillis(),
+				period);
+		
+		schedule();
+	}
+	
+	/**
+	 * Unsubscribes the given listener. This method has to be called from the
+	 * display thread.
+	 * 
+	 * @param listener
+	 *            The listener to remove
+	 */
+	public void unsubscribe(ITickListener listener) {
+		Subscription subscription = getSubscription(listener);
+		
+		if (subscription != null) {
+			subscriptions.remove(subscription);
+			
+			schedule();
+		}
+	}
+	
+	/**
+	 * Checks whether the given listener is subscribed
+	 */
+	public boolean isSubscribed(ITickListener listener) {
+		return getSubscription(listener) != null;
+	}
+	
+	/**
+	 * Gets the subscription of the given listener or <code>null</code> if it
+	 * isn't subscribed
+	 */
+	protected Subscription getSubscription(ITickListener listener) {
+		for (Subscription current : subscriptions) {
+			if (current.listener == listener) {
+				return current;
+			}
+		}
+		
+		return null;
+	}
+	
+	/**
+	 * Gets the first multiple of the given period that lies after the given
+	 * time
+	 */
+	protected static long getNextTime(long time, long period) {
+		return (time / period + 1) * period;
+	}
+	
+	/**
+	 * Calls all listeners that are due and schedules the next tick
+	 */
+	protected void runTicks() {
+		if (display.isDisposed()) {
+			return;
+		}
+		
+		long now = System.currentTimeMillis();
+		
+		// listeners may (un-)subscribe while being called
+		for (Subscription current : new ArrayList<Subscription>(
+				subscriptions)) {
+			if (current.nextTime > now || !subscriptions.contains(current)) {
+				continue;
+			}
+			
+			current.nextTime = getNextTime(now, current.period);
+			
+			try {
+				current.listener.tick(now);
+			} catch (RuntimeException e) {
+				e.printStackTrace();
+			}
+		}
+		
+		schedule();
+	}
+	
+	/**
+	 * Schedules the callback for the listener that is due next or cancels it
+	 * if there are no listeners
+	 */
+	protected void schedule() {
+		if (display.isDisposed()) {
+			return;
+		}
+		
+		if (subscriptions.isEmpty()) {
+			display.timerExec(-1, tick);
+			return;
+		}
+		
+		long nextTime = Long.MAX_VALUE;
+		
+		for (Subscription current : subscriptions) {
+			nextTime = Math.min(nextTime, current.nextTime);
+		}
+		
+		// rescheduling replaces a pending execution
+		display.timerExec(
+				(int) Math.max(0, nextTime - System.currentTimeMillis()),
+				tick);
+	}
+}
@@ -0,0 +1,111 @@
+package util;
+
+import java.util.Arrays;
+
+/**
+ * Collects the durations of rendered frames in order to judge how smooth an
+ * animation is. It keeps the last {@link #SAMPLE_COUNT} frame durations and
+ * counts the frames that have been skipped because their deadline has been
+ * missed.
+ *
+ * @author Raven
+ *
+ */
+public class FrameStatistics {
+
+	/**
+	 * The amount of frame durations the percentiles are calculated from
+	 */
+	public static int SAMPLE_COUNT = 1000;
+
+	/**
+	 * The recorded frame durations in nanoseconds (ring buffer)
+	 */
+	protected long[] durations;
+	/**
+	 * The amount of frames that have been recorded
+	 */
+	protected long frameCount;
+	/**
+	 * The amount of frames that have been skipped
+	 */
+	protected long missedFrames;
+
+
+	public FrameStatistics() {
+		durations = new long[Math.max(1, SAMPLE_COUNT)];
+	}
+
+	/**
+	 * Records the duration of a frame
+	 *
+	 * @param nanos
+	 *            The time since the previous frame in nanoseconds
+	 */
+	public synchronized void recordFrame(long nanos) {
+		durations[(int) (frameCount % durations.length)] = nanos;
+		frameCount++;
+	}
+
+	/**
+	 * Records frames that have been skipped
+	 *
+	 * @param frames
+	 *            The amount of skipped frames
+	 */
+	public synchronized void recordMissedFrames(long frames) {
+		missedFrames += frames;
+	}
+
+	/**
+	 * Gets the given percentile of the recorded frame durations in
+	 * milliseconds
+	 *
+	 * @param percentile
+	 *            The percentile (between 0 and 100)
+	 * @return The frame duration or 0 if no frame has been recorded yet
+	 */
+	public synchronized double getPercentile(double percentile) {
+		int count = (int) Math.min(frameCount, durations.length);
+
+		if (count == 0) {
+			return 0;
+		}
+
+		long[] sorted = Arrays.copyOf(durations, count);
+		Arrays.sort(sorted);
+
+		int index = (int) Math.ceil(percentile / 100.0 * count) - 1;
+
+		return sorted[Math.max(0, Math.min(count - 1, index))] / 1000000.0;
+	}
+
+	/**
+	 * Gets the amount of recorded frames
+	 */
+	public synchronized long getFrameCount() {
+		return frameCount;
+	}
+
+	/**
+	 * Gets the amount of skipped frames
+	 */
+	public synchronized long getMissedFrames() {
+		return missedFrames;
+	}
+
+	/**
+	 * Clears all recorded values
+	 */
+	public synchronized void reset() {
+		frameCount = 0;
+		missedFrames = 0;
+	}
+
+	@Override
+	public synchronized String toString() {
+		return String.format("%d frames, p50: %.2f ms, p99: %.2f ms, missed: %d",
+				frameCount, getPercentile(50), getPercentile(99),
+				missedFrames);
+	}
+}
@@ -0,0 +1,387 @@
+package util;
+
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+import org.eclipse.swt.events.DisposeEvent;
+import org.eclipse.swt.events.DisposeListener;
+import org.eclipse.swt.graphics.Color;
+import org.eclipse.swt.graphics.Cursor;
+import org.eclipse.swt.graphics.Font;
+import org.eclipse.swt.graphics.FontData;
+import org.eclipse.swt.graphics.Image;
+import org.eclipse.swt.graphics.RGB;
+import org.eclipse.swt.graphics.Resource;
+import org.eclipse.swt.widgets.Control;
+import org.eclipse.swt.widgets.Display;
+import org.eclipse.swt.widgets.Widget;
+
+/**
+ * A registry sharing the native graphics resources ({@link Font},
+ * {@link Color}, {@link Cursor} and {@link Image}) of a {@link Display}.
+ * Resources are identified by a key and reference counted: every
+ * <code>get</code> call has to be balanced by a {@link #release(Resource)}
+ * (or the resource has to be bound to a widget via
+ * {@link #bind(Widget, Resource)}). A resource is disposed once it isn't
+ * referenced anymore. All methods have to be called from the display thread.
+ *
+ * @author Raven
+ *
+ */
+public class ResourceRegistry {
+
+	/**
+	 * The key the registry of a display is stored under
+	 */
+	protected static final String DATA_KEY = ResourceRegistry.class.getName();
+	/**
+	 * The key a control stores the font it has obtained via
+	 * {@link #setFont(Control, FontData[])} under
+	 */
+	protected static final String FONT_KEY = DATA_KEY + ".font";
+
+	/**
+	 * A factory creating a resource that isn't registered yet
+	 *
+	 * @author Raven
+	 *
+	 * @param <T>
+	 *            The type of the created resource
+	 */
+	public interface IResourceFactory<T extends Resource> {
+
+		/**
+		 * Creates the resource
+		 *
+		 * @param display
+		 *            The display the resource belongs to
+		 */
+		public T create(Display display);
+	}
+
+	/**
+	 * A registered resource
+	 *
+	 * @author Raven
+	 *
+	 */
+	protected static class Entry {
+		/**
+		 * The key of the resource
+		 */
+		protected String key;
+		/**
+		 * The resource itself
+		 */
+		protected Resource resource;
+		/**
+		 * The amount of references to the resource
+		 */
+		protected int references;
+	}
+
+	/**
+	 * The display the resources belong to
+	 */
+	protected Display display;
+	/**
+	 * The registered resources by their key
+	 */
+	protected Map<String, Entry> entries;
+	/**
+	 * The registered resources by the resource itself
+	 */
+	protected Map<Resource, Entry> resourceEntries;
+
+
+	/**
+	 * Creates a new registry for the given display
+	 *
+	 * @param display
+	 *            The display the resources belong to
+	 */
+	protected ResourceRegistry(Display display) {
+		this.display = display;
+
+		entries = new HashMap<String, Entry>();
+		resourceEntries = new IdentityHashMap<Resource, Entry>();
+
+		display.disposeExec(new Runnable() {
+
+			@Override
+			public void run() {
+				disposeAll();
+			}
+		});
+	}
+
+	/**
+	 * Gets the registry of the given display. It is created on first use.
+	 *
+	 * @param display
+	 *            The display whose registry should be obtained
+	 */
+	public static ResourceRegistry getRegistry(Display display) {
+		ResourceRegistry registry = (ResourceRegistry) display
+				.getData(DATA_KEY);
+
+		if (registry == null) {
+			registry = new ResourceRegistry(display);
+			display.setData(DATA_KEY, registry);
+		}
+
+		return registry;
+	}
+
+	/**
+	 * Gets the font described by the given data
+	 *
+	 * @param data
+	 *            The data describing the font
+	 */
+	public Font getFont(final FontData[] data) {
+		StringBuilder key = new StringBuilder("font");
+
+		for (FontData currentData : data) {
+			key.append('|').append(currentData.toString());
+		}
+
+		return acquire(key.toString(), new IResourceFactory<Font>() {
+
+			@Override
+			public Font create(Display display) {
+				return new Font(display, data);
+			}
+		});
+	}
+
+	/**
+	 * Gets the color with the given RGB value
+	 *
+	 * @param rgb
+	 *            The value of the color
+	 */
+	public Color getColor(final RGB rgb) {
+		return acquire("color|" + rgb.red + "," + rgb.green + "," + rgb.blue,
+				new IResourceFactory<Color>() {
+
+					@Override
+					public Color create(Display display) {
+						return new Color(display, rgb);
+					}
+				});
+	}
+
+	/**
+	 * Gets the cursor with the given key. If it isn't registered yet it is
+	 * created with the given factory.
+	 *
+	 * @param key
+	 *            The key of the cursor
+	 * @param factory
+	 *            The factory creating the cursor
+	 */
+	public Cursor getCursor(String key, IResourceFactory<Cursor> factory) {
+		return acquire("cursor|" + key, factory);
+	}
+
+	/**
+	 * Gets the image with the given key. If it isn't registered yet it is
+	 * created with the given factory.
+	 *
+	 * @param key
+	 *            The key of the image
+	 * @param factory
+	 *            The factory creating the image
+	 */
+	public Image getImage(String key, IResourceFactory<Image> factory) {
+		return acquire("image|" + key, factory);
+	}
+
+	/**
+	 * Gets the resource with the given key and increases its reference count.
+	 * If it isn't registered yet it is created with the given factory.
+	 *
+	 * @param key
+	 *            The key of the resource
+	 * @param factory
+	 *            The factory creating the resource
+	 */
+	@SuppressWarnings("unchecked")
+	protected <T extends Resource> T acquire(String key,
+			IResourceFactory<T> factory) {
+		Entry entry = entries.get(key);
+
+		if (entry == null || entry.resource.isDisposed()) {
+			entry = new Entry();
+			entry.key = key;
+			entry.resource = factory.create(display);
+
+			entries.put(key, entry);
+			resourceEntries.put(entry.resource, entry);
+		}
+
+		entry.references++;
+
+		return (T) entry.resource;
+	}
+
+	/**
+	 * Releases a reference to the given resource. Once it isn't referenced
+	 * anymore it is disposed. The disposal is deferred until the current event
+	 * has been processed so that widgets that still share the resource during
+	 * a dispose cascade aren't affected. Resources that haven't been obtained
+	 * from this registry are ignored.
+	 *
+	 * @param resource
+	 *            The resource to release
+	 */
+	public void release(Resource resource) {
+		final Entry entry = resourceEntries.get(resource);
+
+		if (entry == null || entry.references <= 0) {
+			return;
+		}
+
+		entry.references--;
+
+		if (entry.references > 0 || display.isDisposed()) {
+			return;
+		}
+
+		display.asyncExec(new Runnable() {
+
+			@Override
+			public void run() {
+				if (entry.references > 0 || entries.get(entry.key) != entry) {
+					// it has been acquired again in the meantime
+					return;
+				}
+
+				entries.remove(entry.key);
+				resourceEntries.remove(entry.resource);
+
+				entry.resource.dispose();
+			}
+		});
+	}
+
+	/**
+	 * Releases the given resource once the given widget gets disposed
+	 *
+	 * @param widget
+	 *            The widget using the resource
+	 * @param resource
+	 *            The resource to release
+	 */
+	public void bind(Widget widget, final Resource resource) {
+		widget.addDisposeListener(new DisposeListener() {
+
+			@Override
+			public void widgetDisposed(DisposeEvent e) {
+				release(resource);
+			}
+		});
+	}
+
+	/**
+	 * Sets the font described by the given data on the given control. The font
+	 * is released once the control is disposed or gets another font via this
+	 * method.
+	 *
+	 * @param control
+	 *            The control whose font should be set
+	 * @param data
+	 *            The data describing the font
+	 */
+	public static void setFont(final Control control, FontData[] data) {
+		final ResourceRegistry registry = getRegistry(control.getDisplay());
+
+		Font previousFont = (Font) control.getData(FONT_KEY);
+		Font font = registry.getFont(data);
+
+		control.setFont(font);
+		control.setData(FONT_KEY, font);
+
+		if (previousFont == null) {
+			control.addDisposeListener(new DisposeListener() {
+
+				@Override
+				public void widgetDisposed(DisposeEvent e) {
+					Font currentFont = (Font) control.getData(FONT_KEY);
+
+					if (currentFont != null) {
+						registry.release(currentFont);
+					}
+				}
+			});
+		} else {
+			registry.release(previousFont);
+		}
+	}
+
+	/**
+	 * Magnifies the font of the given control by a given factor. The font is
+	 * obtained via {@link #setFont(Control, FontData[])} and released together
+	 * with the control.
+	 *
+	 * @param control
+	 *            The control whose font should be magnified
+	 * @param factor
+	 *            The magnification factor
+	 */
+	public static void magnifyFont(Control control, double factor) {
+		FontData[] fontData = control.getFont().getFontData();
+		fontData[0].setHeight((int) (fontData[0].getHeight() * factor));
+		setFont(control, fontData);
+	}
+
+	/**
+	 * Gets the amount of registered resources of the given type
+	 *
+	 * @param type
+	 *            The type of resources to count
+	 */
+	public int getLiveHandleCount(Class<? extends Resource> type) {
+		int count = 0;
+
+		for (Entry currentEntry : entries.values()) {
+			if (type.isInstance(currentEntry.resource)
+					&& !currentEntry.resource.isDisposed()) {
+				count++;
+			}
+		}
+
+		return count;
+	}
+
+	/**
+	 * Gets the amount of registered resources
+	 */
+	public int getLiveHandleCount() {
+		return getLiveHandleCount(Resource.class);
+	}
+
+	/**
+	 * Disposes all registered resources
+	 */
+	protected void disposeAll() {
+		for (Entry currentEntry : entries.values()) {
+			if (!currentEntry.resource.isDisposed()) {
+				currentEntry.resource.dispose();
+			}
+		}
+
+		entries.clear();
+		resourceEntries.clear();
+	}
+
+	@Override
+	public String toString() {
+		return "Fonts: " + getLiveHandleCount(Font.class) + ", colors: "
+				+ getLiveHandleCount(Color.class) + ", cursors: "
+				+ getLiveHandleCount(Cursor.class) + ", images: "
+				+ getLiveHandleCount(Image.class);
+	}
+}
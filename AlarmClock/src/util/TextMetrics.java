@@ -0,0 +1,198 @@
+package util;
+
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+import org.eclipse.swt.graphics.Font;
+import org.eclipse.swt.graphics.GC;
+import org.eclipse.swt.graphics.Image;
+import org.eclipse.swt.graphics.Point;
+import org.eclipse.swt.widgets.Display;
+
+/**
+ * A cache for the extents of texts drawn in a certain font. The extents are
+ * measured with a single {@link GC} that is kept for the lifetime of the
+ * display, so that computing the size of a widget during a layout pass
+ * doesn't allocate any native resources once a text has been measured. All
+ * methods have to be called from the display thread.
+ *
+ * @author Raven
+ *
+ */
+public class TextMetrics {
+
+	/**
+	 * The key the metrics of a display are stored under
+	 */
+	protected static final String DATA_KEY = TextMetrics.class.getName();
+
+	/**
+	 * The display the metrics belong to
+	 */
+	protected Display display;
+	/**
+	 * The image the GC draws on
+	 */
+	protected Image image;
+	/**
+	 * The GC used for measuring
+	 */
+	protected GC gc;
+	/**
+	 * The measured extents by font and text
+	 */
+	protected Map<Font, Map<String, Point>> extents;
+	/**
+	 * The amount of texts that had to be measured
+	 */
+	protected long measurements;
+
+
+	/**
+	 * Creates new metrics for the given display
+	 *
+	 * @param display
+	 *            The display the metrics belong to
+	 */
+	protected TextMetrics(Display display) {
+		this.display = display;
+
+		extents = new IdentityHashMap<Font, Map<String, Point>>();
+
+		display.disposeExec(new Runnable() {
+
+			@Override
+			public void run() {
+				dispose();
+			}
+		});
+	}
+
+	/**
+	 * Gets the metrics of the given display. They are created on first use.
+	 *
+	 * @param display
+	 *            The display whose metrics should be obtained
+	 */
+	public static TextMetrics getMetrics(Display display) {
+		TextMetrics metrics = (TextMetrics) display.getData(DATA_KEY);
+
+		if (metrics == null) {
+			metrics = new TextMetrics(display);
+			display.setData(DATA_KEY, metrics);
+		}
+
+		return metrics;
+	}
+
+	/**
+	 * Gets the extent of the given text drawn in the given font. Tabs and line
+	 * delimiters are expanded as by {@link GC#textExtent(String)}.
+	 *
+	 * @param font
+	 *            The font the text is drawn in
+	 * @param text
+	 *            The text to measure
+	 * @return A new point containing the width and height of the text
+	 */
+	public Point textExtent(Font font, String text) {
+		Map<String, Point> fontExtents = extents.get(font);
+
+		if (fontExtents == null) {
+			removeDisposedFonts();
+
+			fontExtents = new HashMap<String, Point>();
+			extents.put(font, fontExtents);
+		}
+
+		Point extent = fontExtents.get(text);
+
+		if (extent == null) {
+			extent = measure(font, text);
+			fontExtents.put(text, extent);
+		}
+
+		return new Point(extent.x, extent.y);
+	}
+
+	/**
+	 * Gets the maximal width and height of the given texts drawn in the given
+	 * font
+	 *
+	 * @param font
+	 *            The font the texts are drawn in
+	 * @param texts
+	 *            The texts to measure
+	 * @return A new point containing the width and height
+	 */
+	public Point maxTextExtent(Font font, String... texts) {
+		Point maxExtent = new Point(0, 0);
+
+		for (String currentText : texts) {
+			Point extent = textExtent(font, currentText);
+
+			maxExtent.x = Math.max(maxExtent.x, extent.x);
+			maxExtent.y = Math.max(maxExtent.y, extent.y);
+		}
+
+		return maxExtent;
+	}
+
+	/**
+	 * Measures the given text with the shared GC
+	 *
+	 * @param font
+	 *            The font the text is drawn in
+	 * @param text
+	 *            The text to measure
+	 */
+	protected Point measure(Font font, String text) {
+		if (gc == null || gc.isDisposed()) {
+			image = new Image(display, 1, 1);
+			gc = new GC(image);
+		}
+
+		gc.setFont(font);
+		measurements++;
+
+		return gc.textExtent(text);
+	}
+
+	/**
+	 * Removes the cached extents of fonts that have been disposed
+	 */
+	protected void removeDisposedFonts() {
+		Iterator<Font> iterator = extents.keySet().iterator();
+
+		while (iterator.hasNext()) {
+			if (iterator.next().isDisposed()) {
+				iterator.remove();
+			}
+		}
+	}
+
+	/**
+	 * Gets the amount of texts that had to be measured because they haven't
+	 * been cached
+	 */
+	public long getMeasurementCount() {
+		return measurements;
+	}
+
+	/**
+	 * Disposes the GC used for measuring and clears the cache
+	 */
+	protected void dispose() {
+		if (gc != null && !gc.isDisposed()) {
+			gc.dispose();
+		}
+
+		if (image != null && !image.isDisposed()) {
+			image.dispose();
+		}
+
+		extents.clear();
+	}
+}
@@ -6,9 +6,6 @@ import java.net.InetAddress;
 
 import org.apache.commons.net.ntp.NTPUDPClient;
 import org.apache.commons.net.ntp.TimeInfo;
-import org.eclipse.swt.graphics.Font;
-import org.eclipse.swt.graphics.FontData;
-import org.eclipse.swt.widgets.Control;
 
 /**
  * A class containing various util methods
@@ -18,20 +15,6 @@ import org.eclipse.swt.widgets.Control;
  */
 public class Util {
 	
-	/**
-	 * Magnifies the font of the given control by a given factor
-	 * 
-	 * @param control
-	 *            The control whose font should be magnified
-	 * @param factor
-	 *            The magnification factor
-	 */
-	public static void magnifyFont(Control control, double factor) {
-		FontData[] fontData = control.getFont().getFontData();
-		fontData[0].setHeight((int) (fontData[0].getHeight() * factor));
-		control.setFont(new Font(control.getDisplay(), fontData));
-	}
-	
 	/**
 	 * Gets the file extension for the given file
 	 * 